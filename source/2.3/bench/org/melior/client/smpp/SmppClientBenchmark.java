@@ -0,0 +1,147 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.TimeUnit;
+import org.jsmpp.bean.BindType;
+import org.melior.server.smpp.SmscSimulator;
+import org.melior.server.smpp.SmscSimulatorBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the hot paths of the {@code SmppClient}: the segmentation of long
+ * messages, the building of PDU templates, and the end-to-end submit throughput
+ * of short and long messages against an in-process {@code SmscSimulator}.  Run
+ * with {@code -prof gc} to report the allocation rate next to the throughput.
+ * @author Melior
+ * @since 2.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SmppClientBenchmark {
+
+    private SmscSimulator simulator;
+
+    private SmppClient client;
+
+    private String longText;
+
+    private SmppMessage message;
+
+    private SmppMessage longMessage;
+
+    /**
+     * Start the SMSC simulator and bind the client to it.  If the {@code smsc.url}
+     * system property is set, then the client binds to that SMSC instead, so that
+     * the allocations of the simulator are not counted against the submit path.
+     * @throws Exception if unable to start the SMSC simulator
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        String url;
+        StringBuilder text;
+
+        url = System.getProperty("smsc.url");
+
+        if (url == null) {
+            simulator = SmscSimulatorBuilder.create().build().start();
+            url = simulator.getUrl();
+        }
+
+        client = SmppClientBuilder.create().bindType(BindType.BIND_TX).build();
+        client.setUrl(url);
+        client.setUsername("bench");
+        client.setPassword("bench");
+
+        text = new StringBuilder();
+
+        while (text.length() < 600) {
+            text.append("The quick brown fox jumps over the lazy dog. ");
+        }
+
+        longText = text.toString();
+
+        message = SmppMessage.of("27820000000", "27830000000", "Benchmark message.");
+        longMessage = SmppMessage.of("27820000000", "27830000000", longText);
+    }
+
+    /**
+     * Drain the client and stop the SMSC simulator.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        client.drain(TimeUnit.SECONDS.toMillis(5));
+
+        if (simulator != null) {
+            simulator.stop();
+        }
+
+    }
+
+    /**
+     * Split a long message into segments.
+     * @return The segments
+     */
+    @Benchmark
+    public String[] segments() {
+        return client.getSegments(longText);
+    }
+
+    /**
+     * Build a PDU template with a TLV.
+     * @return The PDU template
+     */
+    @Benchmark
+    public SmppPduTemplate pduTemplate() {
+        return SmppPduTemplateBuilder.create()
+            .serviceType("CMT")
+            .registeredDelivery((byte) 1)
+            .tlv((short) 0x0204, new byte[] {0x00, 0x01})
+            .build();
+    }
+
+    /**
+     * Submit a message to the SMSC simulator and wait for the response.
+     * @return The message identifier
+     * @throws Exception if unable to submit the message
+     */
+    @Benchmark
+    public String submit() throws Exception {
+        return client.send(message, false);
+    }
+
+    /**
+     * Submit a long message to the SMSC simulator, one segment at a time, and wait
+     * for the responses.  Together with {@code submit} this shows the allocation per
+     * segment of the submit path.
+     * @return The message identifier
+     * @throws Exception if unable to submit the message
+     */
+    @Benchmark
+    public String submitLong() throws Exception {
+        return client.send(longMessage, false);
+    }
+
+}
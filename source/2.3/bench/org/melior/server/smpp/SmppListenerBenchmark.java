@@ -0,0 +1,141 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.jsmpp.bean.BindType;
+import org.jsmpp.bean.DeliverSm;
+import org.jsmpp.bean.DeliveryReceipt;
+import org.jsmpp.bean.MessageType;
+import org.jsmpp.util.DeliveryReceiptState;
+import org.melior.client.smpp.SmppClientBuilder;
+import org.melior.client.smpp.SmppMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the hot paths of the {@code SmppListener}: the processing of mobile
+ * originated messages and of delivery receipts, and the construction and string
+ * representation of {@code SmppMessage} and {@code SmppReceipt}.  The listener is
+ * not started, so that every message and receipt is processed inline by the
+ * benchmark thread.  Run with {@code -prof gc} to report the allocation rate next
+ * to the throughput.
+ * @author Melior
+ * @since 2.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SmppListenerBenchmark {
+
+    private SmppListener listener;
+
+    private DeliverSm messagePdu;
+
+    private DeliverSm receiptPdu;
+
+    private LocalDateTime now;
+
+    /**
+     * Build the listener and the received PDUs.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        Date date;
+
+        listener = SmppListenerBuilder.create()
+            .client(SmppClientBuilder.create().bindType(BindType.BIND_RX).build())
+            .build()
+            .message(message -> {})
+            .receipt(receipt -> {});
+
+        messagePdu = new DeliverSm();
+        messagePdu.setSourceAddr("27820000000");
+        messagePdu.setDestAddress("27830000000");
+        messagePdu.setShortMessage("Benchmark message.".getBytes());
+
+        date = new Date();
+
+        receiptPdu = new DeliverSm();
+        receiptPdu.setSourceAddr("27830000000");
+        receiptPdu.setDestAddress("27820000000");
+        receiptPdu.setEsmClass(MessageType.SMSC_DEL_RECEIPT.value());
+        receiptPdu.setShortMessage(new DeliveryReceipt("0123456789", 1, 1, date, date,
+            DeliveryReceiptState.DELIVRD, "000", "Benchmark message.").toString().getBytes());
+
+        now = LocalDateTime.now();
+    }
+
+    /**
+     * Verify that every message and receipt was processed successfully, so that the
+     * results never measure the failure path.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        if ((listener.getFailedMessages() > 0) || (listener.getFailedReceipts() > 0)) {
+            throw new IllegalStateException("Processing failed: messages=" + listener.getFailedMessages()
+                + ", receipts=" + listener.getFailedReceipts());
+        }
+
+    }
+
+    /**
+     * Process a mobile originated message.
+     * @throws Exception if unable to process the message
+     */
+    @Benchmark
+    public void receiveMessage() throws Exception {
+        listener.receive(messagePdu);
+    }
+
+    /**
+     * Process a delivery receipt.
+     * @throws Exception if unable to process the receipt
+     */
+    @Benchmark
+    public void receiveReceipt() throws Exception {
+        listener.receive(receiptPdu);
+    }
+
+    /**
+     * Construct a message and render it as a string.
+     * @return The string representation of the message
+     */
+    @Benchmark
+    public String message() {
+        return SmppMessage.of("27820000000", "27830000000", "Benchmark message.", "0123456789").toString();
+    }
+
+    /**
+     * Construct a receipt and render it as a string.
+     * @return The string representation of the receipt
+     */
+    @Benchmark
+    public String receipt() {
+        return SmppReceipt.of("27830000000", "27820000000", "Benchmark message.", "0123456789",
+            now, now, DeliveryReceiptState.DELIVRD, "000").toString();
+    }
+
+}
@@ -7,6 +7,7 @@
         Service Harness
 */
 package org.melior.client.smpp;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import org.jsmpp.bean.AlertNotification;
@@ -15,6 +16,7 @@ import org.jsmpp.bean.DataSm;
 import org.jsmpp.bean.DeliverSm;
 import org.jsmpp.extra.NegativeResponseException;
 import org.jsmpp.extra.ProcessRequestException;
+import org.jsmpp.extra.ResponseTimeoutException;
 import org.jsmpp.session.DataSmResult;
 import org.jsmpp.session.MessageReceiverListener;
 import org.jsmpp.session.SMPPSession;
@@ -38,24 +40,40 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
 
     private SmppListener listener;
 
+    private int listenerShard;
+
+    private SmppMetrics metrics;
+
+    private SessionMonitor monitor;
+
+    private boolean transmitOnly;
+
     /**
      * Constructor.
      * @param configuration The client configuration
      * @param connectionPool The connection pool
      * @param bindType The bind type
      * @param listener The message listener
+     * @param listenerShard The index of the shard of the listener
+     * @param metrics The SMPP metrics
      * @throws RemotingException if an error occurs during the construction
      */
     public Connection(
         final SmppClientConfig configuration,
         final ConnectionPool<SmppClientConfig, Connection, SMPPSession> connectionPool,
         final BindType bindType,
-        final SmppListener listener) throws RemotingException {
+        final SmppListener listener,
+        final int listenerShard,
+        final SmppMetrics metrics) throws RemotingException {
 
         super(configuration, connectionPool);
 
         this.bindType = bindType;
         this.listener = listener;
+        this.listenerShard = listenerShard;
+        this.metrics = metrics;
+
+        transmitOnly = (bindType == BindType.BIND_TX);
     }
 
     /**
@@ -66,6 +84,10 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
     public boolean isValid(
         final boolean fullValidation) {
 
+        if ((monitor != null) && (monitor.isValid() == false)) {
+            return false;
+        }
+
         if (lastException != null) {
 
             if (lastException instanceof NegativeResponseException) {
@@ -96,8 +118,14 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
             throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Failed to parse URL: " + exception.getMessage(), exception);
         }
 
-        connection = new SMPPSession();
-        connection.setPduProcessorDegree(listener.getThreads());
+        if ((transmitOnly == false) && (listener == null)) {
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "A listener must be attached to the client before sessions are bound as " + bindType + ".");
+        }
+
+        monitor = new SessionMonitor(configuration, metrics);
+
+        connection = monitor.openSession();
+        connection.setPduProcessorDegree(transmitOnly ? 1 : listener.getThreads());
         connection.connectAndBind(uri.getHost(), uri.getPort(), bindType,
             configuration.getUsername(), configuration.getPassword(),
             configuration.getSystemType(), configuration.getSourceTon(),
@@ -105,11 +133,28 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
             configuration.getConnectionTimeout());
         connection.setEnquireLinkTimer(configuration.getConnectionTimeout());
         connection.setTransactionTimer(configuration.getRequestTimeout());
-        connection.setMessageReceiverListener(new MessageReceiverListener() {
+
+        if (transmitOnly == false) {
+            connection.setMessageReceiverListener(createReceiverListener());
+        }
+
+        monitor.activate(this);
+
+        return connection;
+    }
+
+    /**
+     * Create listener which passes the messages and receipts that are received on
+     * the session to the SMPP listener.
+     * @return The message receiver listener
+     */
+    private MessageReceiverListener createReceiverListener() {
+
+        return new MessageReceiverListener() {
             
             public void onAcceptDeliverSm(
                 final DeliverSm deliverSm) throws ProcessRequestException {
-                listener.receive(deliverSm);
+                listener.receive(listenerShard, deliverSm);
             }
 
             public DataSmResult onAcceptDataSm(
@@ -122,9 +167,7 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
                 final AlertNotification alertNotification) {
             }
 
-        });
-
-        return connection;
+        };
     }
 
     /**
@@ -135,7 +178,15 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
     protected void closeConnection(
         final SMPPSession connection) throws Exception {
 
-        connection.unbindAndClose();
+        try {
+
+            connection.unbindAndClose();
+        }
+        finally {
+
+            monitor.closeSession();
+        }
+
     }
 
     /**
@@ -153,6 +204,7 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
 
         String methodName;
         Object invocationResult;
+        Throwable cause;
 
         methodName = method.getName();
 
@@ -164,7 +216,20 @@ public class Connection extends org.melior.client.core.Connection<SmppClientConf
         }
         else {
 
-            invocationResult = invoke(method, args);
+            try {
+
+                invocationResult = invoke(method, args);
+            }
+            catch (Throwable exception) {
+                cause = (exception instanceof InvocationTargetException) ? exception.getCause() : exception;
+
+                if (cause instanceof ResponseTimeoutException) {
+                    monitor.recordTimeout();
+                }
+
+                throw exception;
+            }
+
         }
 
         return invocationResult;
@@ -11,7 +11,6 @@ import org.jsmpp.bean.BindType;
 import org.jsmpp.session.SMPPSession;
 import org.melior.client.exception.RemotingException;
 import org.melior.client.pool.ConnectionPool;
-import org.melior.server.smpp.SmppListener;
 
 /**
  * Implements a factory for persistent SMPP {@code Connection} objects.
@@ -22,28 +21,35 @@ public class ConnectionFactory implements org.melior.client.core.ConnectionFacto
 
     private BindType bindType;
 
-    private SmppListener listener;
+    private SmppClient client;
+
+    private SmppMetrics metrics;
 
     /**
      * Constructor.
      * @param configuration The client configuration
      * @param bindType The bind type
-     * @param listener The message listener
+     * @param client The client whose listener receives the messages and receipts
+     * @param metrics The SMPP metrics
      * @throws RemotingException if unable to initialize the connection factory
      */
     public ConnectionFactory(
         final SmppClientConfig configuration,
         final BindType bindType,
-        final SmppListener listener) throws RemotingException {
+        final SmppClient client,
+        final SmppMetrics metrics) throws RemotingException {
 
         super();
 
         this.bindType = bindType;
-        this.listener = listener;
+        this.client = client;
+        this.metrics = metrics;
     }
 
     /**
-     * Create a new connection.
+     * Create a new connection.  The listener is looked up when the connection is
+     * created, so that sessions which are bound after a listener has been attached
+     * to the client deliver their messages and receipts to it.
      * @param configuration The client configuration
      * @param connectionPool The connection pool
      * @return The new connection
@@ -55,7 +61,8 @@ public class ConnectionFactory implements org.melior.client.core.ConnectionFacto
 
         Connection connection;
 
-        connection = new Connection(configuration, connectionPool, bindType, listener);
+        connection = new Connection(configuration, connectionPool, bindType,
+            (bindType == BindType.BIND_TX) ? null : client.getListener(), client.getListenerShard(), metrics);
         connection.open();
 
         return connection;
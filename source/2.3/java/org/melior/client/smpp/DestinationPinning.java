@@ -0,0 +1,205 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pins each destination address to one of a fixed number of stripes, so that
+ * messages to the same destination are submitted one at a time and in the order
+ * in which they were sent, while messages to other destinations proceed in
+ * parallel on the other stripes.  There is one stripe per connection.
+ * <p>
+ * Destinations are mapped to stripes by jump consistent hashing, so that when the
+ * number of connections changes, only the destinations which must move to a new
+ * stripe are remapped.  The stripes are resized in place, so the destinations
+ * which stay on their stripe keep its lock and its chain of asynchronous work.
+ * @author Melior
+ * @since 2.3
+ */
+class DestinationPinning {
+
+    private volatile Stripe[] stripes;
+
+    /**
+     * Constructor.
+     * @param stripeCount The number of stripes
+     */
+    DestinationPinning(
+        final int stripeCount) {
+
+        super();
+
+        stripes = new Stripe[Math.max(stripeCount, 1)];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+
+    }
+
+    /**
+     * Get number of stripes.
+     * @return The number of stripes
+     */
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Change number of stripes.  The existing stripes are kept, stripes are added
+     * when the number grows, and the last stripes are dropped when it shrinks.
+     * Senders which already hold a dropped stripe finish on it.
+     * @param stripeCount The new number of stripes
+     */
+    synchronized void resize(
+        final int stripeCount) {
+
+        Stripe[] stripes;
+
+        stripes = Arrays.copyOf(this.stripes, Math.max(stripeCount, 1));
+
+        for (int i = this.stripes.length; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.stripes = stripes;
+    }
+
+    /**
+     * Get lock of the stripe to which a destination is pinned.  The lock is fair, so
+     * that waiting senders acquire it in the order in which they arrived.
+     * @param destinationAddress The destination address
+     * @return The lock
+     */
+    ReentrantLock getLock(
+        final String destinationAddress) {
+        return getStripe(destinationAddress).lock;
+    }
+
+    /**
+     * Run work asynchronously after all earlier asynchronous work for the stripe to
+     * which a destination is pinned has completed, regardless of its outcome.  The
+     * work is skipped if the future has already been completed, and the future is
+     * failed if the executor rejects the work.
+     * @param destinationAddress The destination address
+     * @param executor The executor on which to run the work
+     * @param work The work
+     * @param future The future which receives the result of the work
+     */
+    void chain(
+        final String destinationAddress,
+        final Executor executor,
+        final Callable<String> work,
+        final CompletableFuture<String> future) {
+
+        Stripe stripe;
+        CompletableFuture<Void> link;
+
+        stripe = getStripe(destinationAddress);
+
+        link = new CompletableFuture<Void>();
+
+        synchronized (stripe) {
+
+            stripe.tail.whenComplete((result, exception) -> {
+
+                try {
+
+                    executor.execute(() -> {
+
+                        try {
+
+                            if (future.isDone() == false) {
+                                future.complete(work.call());
+                            }
+
+                        }
+                        catch (Throwable throwable) {
+                            future.completeExceptionally(throwable);
+                        }
+                        finally {
+
+                            link.complete(null);
+                        }
+
+                    });
+
+                }
+                catch (RejectedExecutionException rejected) {
+                    future.completeExceptionally(rejected);
+
+                    link.complete(null);
+                }
+
+            });
+
+            stripe.tail = link;
+        }
+
+    }
+
+    /**
+     * Get stripe to which a destination is pinned.
+     * @param destinationAddress The destination address
+     * @return The stripe
+     */
+    private Stripe getStripe(
+        final String destinationAddress) {
+
+        Stripe[] stripes;
+
+        stripes = this.stripes;
+
+        return stripes[hash((destinationAddress == null) ? 0 : destinationAddress.hashCode(), stripes.length)];
+    }
+
+    /**
+     * Map key to bucket by jump consistent hashing.
+     * @param key The key
+     * @param buckets The number of buckets
+     * @return The bucket
+     */
+    static int hash(
+        final long key,
+        final int buckets) {
+
+        long state;
+        long bucket;
+        long next;
+
+        state = key;
+        bucket = -1;
+        next = 0;
+
+        while (next < buckets) {
+            bucket = next;
+            state = state * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((state >>> 33) + 1)));
+        }
+
+        return (int) bucket;
+    }
+
+    /**
+     * A stripe of destinations.
+     */
+    private static class Stripe {
+
+        private ReentrantLock lock = new ReentrantLock(true);
+
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    }
+
+}
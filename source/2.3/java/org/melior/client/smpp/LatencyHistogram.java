@@ -0,0 +1,189 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implements a lock-free latency histogram with log-linear buckets, in the style
+ * of an HDR histogram.  Each power of two is divided into a fixed number of linear
+ * sub-buckets, which bounds the relative error of any reported percentile to 12.5%
+ * while keeping the footprint of the histogram constant.
+ * <p>
+ * Recording a value is a single atomic increment and never allocates, so the
+ * histogram may be updated from any number of threads on the hot path.
+ * @author Melior
+ * @since 2.3
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private AtomicLongArray counts;
+
+    private LongAdder total;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+
+        super();
+
+        counts = new AtomicLongArray(BUCKETS);
+        total = new LongAdder();
+    }
+
+    /**
+     * Record latency.
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(
+        final long nanos) {
+
+        long value;
+
+        value = Math.max(nanos, 1);
+
+        counts.incrementAndGet(indexOf(value));
+        total.add(value);
+    }
+
+    /**
+     * Get number of recorded values.
+     * @return The number of recorded values
+     */
+    public long getCount() {
+
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Get mean of recorded values.
+     * @param timeUnit The time unit of the result
+     * @return The mean of the recorded values
+     */
+    public double getMean(
+        final TimeUnit timeUnit) {
+
+        long count;
+
+        count = getCount();
+
+        return (count == 0) ? 0 : (double) total.sum() / count / timeUnit.toNanos(1);
+    }
+
+    /**
+     * Get percentile of recorded values.  The result is the upper bound of the bucket
+     * in which the percentile falls.
+     * @param percentile The percentile, from 0 to 100
+     * @param timeUnit The time unit of the result
+     * @return The value at the percentile
+     */
+    public double getPercentile(
+        final double percentile,
+        final TimeUnit timeUnit) {
+
+        long[] snapshot;
+        long count = 0;
+        long threshold;
+        long cumulative = 0;
+
+        snapshot = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        threshold = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100d);
+
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += snapshot[i];
+
+            if ((cumulative >= threshold) && (cumulative > 0)) {
+                return (double) upperBoundOf(i) / timeUnit.toNanos(1);
+            }
+
+        }
+
+        return (double) upperBoundOf(BUCKETS - 1) / timeUnit.toNanos(1);
+    }
+
+    /**
+     * Reset histogram.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+
+        total.reset();
+    }
+
+    /**
+     * Get bucket index of value.
+     * @param value The value
+     * @return The bucket index
+     */
+    private static int indexOf(
+        final long value) {
+
+        int exponent;
+        int subBucket;
+
+        exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        if (exponent < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+
+        subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Get upper bound of bucket.
+     * @param index The bucket index
+     * @return The upper bound of the bucket
+     */
+    private static long upperBoundOf(
+        final int index) {
+
+        int exponent;
+        long subBucket;
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        exponent = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        subBucket = index & (SUB_BUCKETS - 1);
+
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+}
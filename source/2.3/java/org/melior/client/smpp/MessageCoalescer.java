@@ -0,0 +1,223 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.melior.client.exception.RemotingException;
+import org.melior.service.exception.ExceptionType;
+
+/**
+ * Coalesces identical messages to the same destination which are sent within a
+ * short window of each other.  The first message is submitted, and every identical
+ * message which follows within the window receives the outcome of the first one,
+ * including its message identifier, without being submitted again.  A message
+ * whose submission failed is not coalesced, so the next identical message is
+ * submitted again.
+ * @author Melior
+ * @since 2.3
+ */
+class MessageCoalescer {
+
+    private long window;
+
+    private ConcurrentHashMap<Object, Entry> entries;
+
+    private volatile long nextPurge;
+
+    /**
+     * Constructor.
+     * @param window The coalescing window in milliseconds
+     */
+    MessageCoalescer(
+        final int window) {
+
+        super();
+
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+
+        entries = new ConcurrentHashMap<Object, Entry>();
+
+        nextPurge = System.nanoTime() + this.window;
+    }
+
+    /**
+     * Get coalescing window.
+     * @return The coalescing window in milliseconds
+     */
+    int getWindow() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(window);
+    }
+
+    /**
+     * Send message, unless an identical message was sent within the window.
+     * @param submission The submission of the message
+     * @param sender The sender which submits the message
+     * @return The message identifier
+     * @throws RemotingException if unable to send the message
+     */
+    String send(
+        final Submission submission,
+        final Sender sender) throws RemotingException {
+
+        long now;
+        Object key;
+        Entry created;
+        Entry entry;
+        String messageId;
+
+        now = System.nanoTime();
+
+        purge(now);
+
+        key = submission.getKey();
+        created = new Entry(now);
+
+        entry = entries.compute(key, (k, existing) -> ((existing == null) || (existing.isReusable(now) == false)) ? created : existing);
+
+        if (entry != created) {
+            return await(entry);
+        }
+
+        try {
+
+            messageId = sender.send(submission);
+        }
+        catch (RemotingException exception) {
+            entries.remove(key, created);
+
+            created.result.completeExceptionally(exception);
+
+            throw exception;
+        }
+        catch (RuntimeException exception) {
+            entries.remove(key, created);
+
+            created.result.completeExceptionally(exception);
+
+            throw exception;
+        }
+
+        created.result.complete(messageId);
+
+        return messageId;
+    }
+
+    /**
+     * Await outcome of coalesced message.
+     * @param entry The entry of the message
+     * @return The message identifier
+     * @throws RemotingException if the message could not be sent
+     */
+    private String await(
+        final Entry entry) throws RemotingException {
+
+        try {
+
+            return entry.result.get();
+        }
+        catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof RemotingException) {
+                throw (RemotingException) exception.getCause();
+            }
+
+            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, "Failed to send message: " + exception.getCause().getMessage(), exception.getCause());
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Interrupted while waiting for coalesced message.", exception);
+        }
+
+    }
+
+    /**
+     * Remove entries whose window has passed.  Runs at most once per window.
+     * @param now The current time, as per {@code System.nanoTime}
+     */
+    private void purge(
+        final long now) {
+
+        Iterator<Entry> iterator;
+        Entry entry;
+
+        if (now - nextPurge < 0) {
+            return;
+        }
+
+        nextPurge = now + window;
+
+        iterator = entries.values().iterator();
+
+        while (iterator.hasNext() == true) {
+            entry = iterator.next();
+
+            if ((entry.result.isDone() == true) && (now - entry.time > window)) {
+                iterator.remove();
+            }
+
+        }
+
+    }
+
+    /**
+     * Submits a message on behalf of the coalescer.
+     */
+    interface Sender {
+
+        /**
+         * Send message.
+         * @param submission The submission of the message
+         * @return The message identifier
+         * @throws RemotingException if unable to send the message
+         */
+        String send(
+            Submission submission) throws RemotingException;
+
+    }
+
+    /**
+     * A coalesced message.
+     */
+    private class Entry {
+
+        private long time;
+
+        private CompletableFuture<String> result;
+
+        /**
+         * Constructor.
+         * @param time The time at which the message was sent, as per {@code System.nanoTime}
+         */
+        Entry(
+            final long time) {
+
+            super();
+
+            this.time = time;
+
+            result = new CompletableFuture<String>();
+        }
+
+        /**
+         * Check whether the outcome of the message may be reused.
+         * @param now The current time, as per {@code System.nanoTime}
+         * @return true if the outcome may be reused, false otherwise
+         */
+        boolean isReusable(
+            final long now) {
+            return (now - time <= window) && (result.isCompletedExceptionally() == false);
+        }
+
+    }
+
+}
@@ -0,0 +1,269 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jsmpp.util.DeliveryReceiptState;
+import org.melior.client.exception.RemotingException;
+import org.melior.server.smpp.SmppReceipt;
+import org.melior.service.exception.ExceptionType;
+
+/**
+ * A registry of the callers which wait for the final receipts of their messages,
+ * keyed by message identifier.  The listener completes the waiters directly when
+ * the receipts arrive, and waiters which time out remove themselves.  There may be
+ * several waiters for the same message identifier, since identical messages which
+ * are coalesced share the message identifier of the message that was submitted.
+ * <p>
+ * A receipt may arrive before the caller has registered its waiter, since the
+ * waiter can only be registered once the SMSC has returned the message identifier.
+ * While sends with waiters are in progress, final receipts without a waiter are
+ * therefore held for a short time, so that the waiter finds them when it is
+ * registered.
+ * <p>
+ * The timeouts of the waiters and of the held receipts run on a timer wheel of
+ * their own, which holds a single small node per timeout, and which is stopped
+ * when the client is drained.
+ * @author Melior
+ * @since 2.3
+ */
+class ReceiptWaiters {
+
+    private Map<String, List<CompletableFuture<SmppReceipt>>> waiters;
+
+    private Map<String, SmppReceipt> orphans;
+
+    private AtomicInteger sending;
+
+    private long orphanTimeout;
+
+    private TimerWheel timerWheel;
+
+    /**
+     * Constructor.
+     * @param orphanTimeout The time for which receipts without a waiter are held, in milliseconds
+     */
+    ReceiptWaiters(
+        final long orphanTimeout) {
+
+        super();
+
+        this.orphanTimeout = orphanTimeout;
+
+        waiters = new ConcurrentHashMap<String, List<CompletableFuture<SmppReceipt>>>();
+        orphans = new ConcurrentHashMap<String, SmppReceipt>();
+        sending = new AtomicInteger();
+
+        timerWheel = new TimerWheel(10);
+        timerWheel.start("smpp-client-receipts");
+    }
+
+    /**
+     * Begin send with a waiter.
+     */
+    void begin() {
+        sending.incrementAndGet();
+    }
+
+    /**
+     * End send with a waiter.
+     */
+    void end() {
+        sending.decrementAndGet();
+    }
+
+    /**
+     * Register waiter.
+     * @param messageId The message identifier
+     * @param timeout The time to wait for the receipt, in milliseconds
+     * @return The future receipt
+     */
+    CompletableFuture<SmppReceipt> register(
+        final String messageId,
+        final long timeout) {
+
+        CompletableFuture<SmppReceipt> future;
+        SmppReceipt receipt;
+
+        future = new CompletableFuture<SmppReceipt>();
+
+        waiters.compute(messageId, (key, list) -> {
+            List<CompletableFuture<SmppReceipt>> futures = (list == null) ? new ArrayList<CompletableFuture<SmppReceipt>>(1) : list;
+            futures.add(future);
+            return futures;
+        });
+
+        receipt = orphans.remove(messageId);
+
+        if (receipt != null) {
+            completeAll(waiters.remove(messageId), receipt);
+
+            return future;
+        }
+
+        timerWheel.schedule(System.currentTimeMillis() + timeout, () -> {
+
+            if (future.isDone() == false) {
+                remove(messageId, future);
+                future.completeExceptionally(new TimeoutException());
+            }
+
+        });
+
+        return future;
+    }
+
+    /**
+     * Complete waiters of receipt.  Receipts with an intermediate state are ignored.
+     * @param receipt The receipt
+     * @return true if a waiter was completed, false otherwise
+     */
+    boolean complete(
+        final SmppReceipt receipt) {
+
+        List<CompletableFuture<SmppReceipt>> futures;
+        String messageId;
+
+        if ((receipt.getMessageId() == null) || (isFinal(receipt.getState()) == false)) {
+            return false;
+        }
+
+        messageId = receipt.getMessageId();
+
+        futures = waiters.remove(messageId);
+
+        if (futures != null) {
+            return completeAll(futures, receipt);
+        }
+
+        if (sending.get() == 0) {
+            return false;
+        }
+
+        orphans.put(messageId, receipt);
+
+        futures = waiters.remove(messageId);
+
+        if (futures != null) {
+            orphans.remove(messageId, receipt);
+
+            return completeAll(futures, receipt);
+        }
+
+        timerWheel.schedule(System.currentTimeMillis() + orphanTimeout, () -> orphans.remove(messageId, receipt));
+
+        return false;
+    }
+
+    /**
+     * Stop receipt waiters.  The timer wheel is stopped, and the waiters which are
+     * still waiting for their receipts are failed.
+     */
+    void stop() {
+
+        timerWheel.stop();
+
+        for (String messageId : waiters.keySet()) {
+            failAll(waiters.remove(messageId), new RemotingException(ExceptionType.LOCAL_APPLICATION, "Client was drained before the receipt arrived."));
+        }
+
+        orphans.clear();
+    }
+
+    /**
+     * Get number of waiters.
+     * @return The number of waiters
+     */
+    int size() {
+
+        int size = 0;
+
+        for (List<CompletableFuture<SmppReceipt>> futures : waiters.values()) {
+            size += futures.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Remove waiter.
+     * @param messageId The message identifier
+     * @param future The future receipt of the waiter
+     */
+    private void remove(
+        final String messageId,
+        final CompletableFuture<SmppReceipt> future) {
+
+        waiters.computeIfPresent(messageId, (key, futures) -> {
+            futures.remove(future);
+            return (futures.isEmpty() == true) ? null : futures;
+        });
+
+    }
+
+    /**
+     * Complete all waiters of a message.
+     * @param futures The future receipts of the waiters, which have been removed from the registry
+     * @param receipt The receipt
+     * @return true if a waiter was completed, false otherwise
+     */
+    private boolean completeAll(
+        final List<CompletableFuture<SmppReceipt>> futures,
+        final SmppReceipt receipt) {
+
+        boolean completed = false;
+
+        if (futures == null) {
+            return false;
+        }
+
+        for (CompletableFuture<SmppReceipt> future : futures) {
+            completed |= future.complete(receipt);
+        }
+
+        return completed;
+    }
+
+    /**
+     * Fail all waiters of a message.
+     * @param futures The future receipts of the waiters, which have been removed from the registry
+     * @param exception The exception
+     */
+    private void failAll(
+        final List<CompletableFuture<SmppReceipt>> futures,
+        final Throwable exception) {
+
+        if (futures == null) {
+            return;
+        }
+
+        for (CompletableFuture<SmppReceipt> future : futures) {
+            future.completeExceptionally(exception);
+        }
+
+    }
+
+    /**
+     * Check whether delivery state is final.  Only {@code ENROUTE} is intermediate,
+     * since {@code ACCEPTD} means that the message was accepted on behalf of the
+     * subscriber, after which the SMSC sends no further receipt.
+     * @param state The delivery state
+     * @return true if the delivery state is final, false otherwise
+     */
+    private boolean isFinal(
+        final DeliveryReceiptState state) {
+        return (state != null) && (state != DeliveryReceiptState.ENROUTE);
+    }
+
+}
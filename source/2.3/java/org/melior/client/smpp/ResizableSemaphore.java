@@ -0,0 +1,68 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A semaphore whose number of permits can be changed while permits are held.
+ * Growing the semaphore releases the additional permits, and shrinking it takes
+ * permits away, so that holders of permits which release them later never push
+ * the number of permits above the new limit.
+ * @author Melior
+ * @since 2.3
+ */
+class ResizableSemaphore extends Semaphore {
+
+    private static final long serialVersionUID = 1L;
+
+    private int limit;
+
+    /**
+     * Constructor.
+     * @param limit The number of permits
+     */
+    ResizableSemaphore(
+        final int limit) {
+
+        super(limit);
+
+        this.limit = limit;
+    }
+
+    /**
+     * Get number of permits.
+     * @return The number of permits
+     */
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Change number of permits.
+     * @param limit The new number of permits
+     */
+    synchronized void resize(
+        final int limit) {
+
+        int delta;
+
+        delta = limit - this.limit;
+
+        this.limit = limit;
+
+        if (delta > 0) {
+            release(delta);
+        }
+        else if (delta < 0) {
+            reducePermits(-delta);
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.io.IOException;
+import org.jsmpp.SMPPConstant;
+import org.jsmpp.extra.NegativeResponseException;
+import org.jsmpp.extra.ResponseTimeoutException;
+import org.melior.client.exception.RemotingException;
+
+/**
+ * Classifies the failures of SMPP requests as either transient, in which case the
+ * request may be retried, or permanent, in which case the request fails fast.
+ * <p>
+ * Negative responses are transient when the SMSC reports that it is throttling
+ * the client, that its message queue is full, or that it experienced a system
+ * error.  All other negative responses, such as an invalid destination address,
+ * are permanent.  Response timeouts and communication failures are transient, but
+ * ambiguous, since the SMSC may already have accepted the request.
+ * <p>
+ * Negative responses which indicate that the SMSC does not accept the message
+ * payload, or the length of the message in it, cause the message to be segmented.
+ * @author Melior
+ * @since 2.3
+ */
+class RetryPolicy {
+
+    /**
+     * Constructor.
+     */
+    private RetryPolicy() {
+        super();
+    }
+
+    /**
+     * Check whether the failure of a request is transient, and whether it is safe to
+     * send the request again.  Negative responses with a transient command status
+     * tell that the SMSC did not accept the request, and failures to obtain a
+     * connection tell that the request was never sent, so these are always retried.
+     * Response timeouts and communication failures are ambiguous, since the SMSC may
+     * already have accepted the request, so these are only retried when ambiguous
+     * retries are enabled, at the risk of delivering the message twice.
+     * @param exception The exception which caused the failure
+     * @param ambiguous true if ambiguous failures may be retried, false otherwise
+     * @return true if the request may be retried, false otherwise
+     */
+    static boolean isRetryable(
+        final Throwable exception,
+        final boolean ambiguous) {
+
+        if (exception instanceof NegativeResponseException) {
+            return isRetryable(((NegativeResponseException) exception).getCommandStatus());
+        }
+
+        if (exception instanceof RemotingException) {
+            return true;
+        }
+
+        return (ambiguous == true)
+            && ((exception instanceof ResponseTimeoutException) || (exception instanceof IOException));
+    }
+
+    /**
+     * Check whether a command status is transient.
+     * @param commandStatus The command status
+     * @return true if the request may be retried, false otherwise
+     */
+    static boolean isRetryable(
+        final int commandStatus) {
+
+        switch (commandStatus) {
+        case SMPPConstant.STAT_ESME_RTHROTTLED:
+        case SMPPConstant.STAT_ESME_RMSGQFUL:
+        case SMPPConstant.STAT_ESME_RSYSERR:
+            return true;
+        default:
+            return false;
+        }
+
+    }
+
+    /**
+     * Check whether the failure of a request indicates that the SMSC does not accept
+     * the message payload.  Only command statuses which are specific to the length
+     * of the message or to TLVs count, so that generic submit failures do not turn
+     * off the message payload.
+     * @param exception The exception which caused the failure
+     * @return true if the message should be segmented instead, false otherwise
+     */
+    static boolean isPayloadRejected(
+        final Throwable exception) {
+
+        if ((exception instanceof NegativeResponseException) == false) {
+            return false;
+        }
+
+        switch (((NegativeResponseException) exception).getCommandStatus()) {
+        case SMPPConstant.STAT_ESME_RINVMSGLEN:
+        case SMPPConstant.STAT_ESME_RINVTLVSTREAM:
+        case SMPPConstant.STAT_ESME_RINVTLVLEN:
+        case SMPPConstant.STAT_ESME_RINVTLVVAL:
+        case SMPPConstant.STAT_ESME_RTLVNOTALLWD:
+            return true;
+        default:
+            return false;
+        }
+
+    }
+
+    /**
+     * Get backoff delay before a retry.  The delay grows by the backoff multiplier
+     * with every attempt, up to the backoff limit, if any.
+     * @param configuration The client configuration
+     * @param attempt The number of attempts that failed so far, starting at 1
+     * @return The backoff delay in milliseconds
+     */
+    static long getBackoff(
+        final SmppClientConfig configuration,
+        final int attempt) {
+
+        double delay;
+
+        delay = configuration.getBackoffPeriod() * Math.pow(Math.max(configuration.getBackoffMultiplier(), 1), attempt - 1);
+
+        if (configuration.getBackoffLimit() > 0) {
+            delay = Math.min(delay, configuration.getBackoffLimit());
+        }
+
+        return (long) delay;
+    }
+
+}
@@ -0,0 +1,359 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Sends the SMPP messages of an upstream {@code Publisher} and publishes the
+ * results to a single downstream subscriber.  Messages are only requested from
+ * upstream while the number of outstanding messages is below both the send window
+ * and the demand of the downstream subscriber, so that no messages are buffered.
+ * Results are published in the order in which the sends complete.  The signals to
+ * the downstream subscriber are serialized by a drain loop, and are never emitted
+ * while the processor holds its monitor.
+ * @author Melior
+ * @since 2.3
+ */
+class SendProcessor implements Processor<SmppMessage, SmppResult> {
+
+    private SmppClient client;
+
+    private boolean registeredDelivery;
+
+    private int window;
+
+    private Subscription upstream;
+
+    private Subscriber<? super SmppResult> downstream;
+
+    private long demand;
+
+    private long requested;
+
+    private long inFlight;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private Throwable failure;
+
+    private boolean terminated;
+
+    private Queue<SmppResult> results;
+
+    private AtomicInteger pending;
+
+    /**
+     * Constructor.
+     * @param client The SMPP client
+     * @param registeredDelivery true if the messages should be sent using registered delivery, false otherwise
+     * @param window The maximum number of outstanding messages
+     */
+    SendProcessor(
+        final SmppClient client,
+        final boolean registeredDelivery,
+        final int window) {
+
+        super();
+
+        this.client = client;
+        this.registeredDelivery = registeredDelivery;
+        this.window = Math.max(window, 1);
+
+        results = new ConcurrentLinkedQueue<SmppResult>();
+        pending = new AtomicInteger();
+    }
+
+    /**
+     * Subscribe downstream subscriber.
+     * @param subscriber The subscriber
+     */
+    public void subscribe(
+        final Subscriber<? super SmppResult> subscriber) {
+
+        synchronized (this) {
+
+            if (downstream != null) {
+                subscriber.onSubscribe(new Subscription() {
+                    public void request(final long n) {}
+                    public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("Only a single subscriber is supported."));
+
+                return;
+            }
+
+            downstream = subscriber;
+        }
+
+        subscriber.onSubscribe(new Subscription() {
+
+            public void request(
+                final long n) {
+
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Demand must be positive."));
+
+                    return;
+                }
+
+                synchronized (SendProcessor.this) {
+                    demand = ((demand + n) < 0) ? Long.MAX_VALUE : demand + n;
+                }
+
+                requestUpstream();
+            }
+
+            public void cancel() {
+
+                Subscription subscription;
+
+                synchronized (SendProcessor.this) {
+                    terminated = true;
+                    subscription = upstream;
+                }
+
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+
+            }
+
+        });
+
+        drain();
+    }
+
+    /**
+     * Handle upstream subscription.
+     * @param subscription The upstream subscription
+     */
+    public void onSubscribe(
+        final Subscription subscription) {
+
+        synchronized (this) {
+
+            if (upstream != null) {
+                subscription.cancel();
+
+                return;
+            }
+
+            upstream = subscription;
+        }
+
+        requestUpstream();
+    }
+
+    /**
+     * Send upstream message.
+     * @param message The SMPP message
+     */
+    public void onNext(
+        final SmppMessage message) {
+
+        synchronized (this) {
+            requested--;
+            inFlight++;
+        }
+
+        try {
+
+            client.sendAsync(message, registeredDelivery)
+                .whenComplete((messageId, exception) -> emit((exception == null)
+                    ? SmppResult.of(message, messageId) : SmppResult.of(message, exception)));
+        }
+        catch (Exception exception) {
+            emit(SmppResult.of(message, exception));
+        }
+
+    }
+
+    /**
+     * Handle upstream error.
+     * @param throwable The error
+     */
+    public void onError(
+        final Throwable throwable) {
+
+        synchronized (this) {
+            completed = true;
+            error = throwable;
+        }
+
+        drain();
+    }
+
+    /**
+     * Handle upstream completion.
+     */
+    public void onComplete() {
+
+        synchronized (this) {
+            completed = true;
+        }
+
+        drain();
+    }
+
+    /**
+     * Request messages from upstream, up to the lesser of the send window and the
+     * downstream demand.
+     */
+    private void requestUpstream() {
+
+        Subscription subscription;
+        long n;
+
+        synchronized (this) {
+
+            if ((upstream == null) || (downstream == null) || (completed == true) || (terminated == true) || (failure != null)) {
+                return;
+            }
+
+            n = Math.min(window, demand) - (requested + inFlight);
+
+            if (n <= 0) {
+                return;
+            }
+
+            requested += n;
+            subscription = upstream;
+        }
+
+        subscription.request(n);
+    }
+
+    /**
+     * Emit result to downstream subscriber.
+     * @param result The SMPP result
+     */
+    private void emit(
+        final SmppResult result) {
+        results.offer(result);
+        drain();
+    }
+
+    /**
+     * Drain the completed results to the downstream subscriber, followed by the
+     * terminal signal once upstream has completed and all outstanding sends have
+     * been emitted.  Only one thread drains at a time, and a thread which finds
+     * the loop busy leaves its work to the draining thread, so that the signals
+     * are serialized without holding the monitor.  Messages which were requested
+     * but never delivered by upstream are not waited for.
+     */
+    private void drain() {
+
+        Subscriber<? super SmppResult> target;
+        SmppResult result;
+        boolean deliver;
+        Throwable signal;
+        boolean signalled;
+        int missed;
+
+        if (pending.getAndIncrement() != 0) {
+            return;
+        }
+
+        missed = 1;
+
+        do {
+
+            while ((result = results.poll()) != null) {
+
+                synchronized (this) {
+                    inFlight--;
+
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+
+                    deliver = (terminated == false) && (failure == null);
+                    target = downstream;
+                }
+
+                if (deliver == true) {
+                    target.onNext(result);
+                }
+
+            }
+
+            requestUpstream();
+
+            synchronized (this) {
+                target = downstream;
+                signal = null;
+                signalled = false;
+
+                if ((terminated == false) && (target != null)) {
+
+                    if (failure != null) {
+                        signal = failure;
+                        signalled = true;
+                    }
+                    else if ((completed == true) && (inFlight == 0)) {
+                        signal = error;
+                        signalled = true;
+                    }
+
+                    terminated = signalled;
+                }
+
+            }
+
+            if (signalled == true) {
+
+                if (signal == null) {
+                    target.onComplete();
+                }
+                else {
+                    target.onError(signal);
+                }
+
+            }
+
+            missed = pending.addAndGet(-missed);
+        }
+        while (missed != 0);
+
+    }
+
+    /**
+     * Fail downstream subscriber.
+     * @param throwable The error
+     */
+    private void fail(
+        final Throwable throwable) {
+
+        Subscription subscription;
+
+        synchronized (this) {
+
+            if ((terminated == true) || (failure != null)) {
+                return;
+            }
+
+            failure = throwable;
+            subscription = upstream;
+        }
+
+        if (subscription != null) {
+            subscription.cancel();
+        }
+
+        drain();
+    }
+
+}
@@ -0,0 +1,136 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.melior.logging.core.Logger;
+import org.melior.logging.core.LoggerFactory;
+
+/**
+ * Runs a background task which periodically maintains the monitored sessions of
+ * an {@code SmppClient}.  Maintenance never runs on the send or receive paths.
+ * Unhealthy sessions are evicted, after which the pools are made to replace the
+ * evicted sessions before senders are routed to them.  Sessions which were bound
+ * with an earlier generation of the configuration are retired and replaced one
+ * at a time, so that traffic never drops to zero.
+ * @author Melior
+ * @since 2.3
+ */
+class SessionMaintainer {
+
+    private static final long INTERVAL = 1000;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private SmppMetrics metrics;
+
+    private Runnable replenisher;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     * @param metrics The SMPP metrics which hold the monitored sessions
+     * @param replenisher The task which replenishes the pools after an eviction
+     */
+    SessionMaintainer(
+        final SmppMetrics metrics,
+        final Runnable replenisher) {
+
+        super();
+
+        this.metrics = metrics;
+        this.replenisher = replenisher;
+    }
+
+    /**
+     * Start maintenance task.
+     * @param name The thread name
+     */
+    void start(
+        final String name) {
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::maintain, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop maintenance task.
+     */
+    void stop() {
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+    }
+
+    /**
+     * Maintain monitored sessions.
+     */
+    private void maintain() {
+
+        String methodName = "maintain";
+        boolean evicted = false;
+        SessionMonitor stale = null;
+
+        for (SessionMonitor session : metrics.getSessions()) {
+
+            try {
+
+                if (session.evict() == true) {
+                    logger.warn(methodName, "Session [", session.getId(), "] evicted because it is unhealthy.");
+
+                    evicted = true;
+                }
+                else {
+                    session.maintain();
+
+                    if ((stale == null) && (session.isRetired() == false) && (session.isCurrent() == false)) {
+                        stale = session;
+                    }
+
+                }
+
+            }
+            catch (Exception exception) {
+                logger.error(methodName, "Failed to maintain session: ", exception.getMessage());
+            }
+
+        }
+
+        if ((evicted == false) && (stale != null)) {
+            logger.debug(methodName, "Session [", stale.getId(), "] retired because the configuration has changed.");
+
+            stale.retire();
+
+            evicted = true;
+        }
+
+        if (evicted == true) {
+
+            try {
+
+                replenisher.run();
+            }
+            catch (Exception exception) {
+                logger.error(methodName, "Failed to replenish sessions: ", exception.getMessage());
+            }
+
+        }
+
+    }
+
+}
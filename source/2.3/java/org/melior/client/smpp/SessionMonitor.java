@@ -0,0 +1,476 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jsmpp.DefaultPDUReader;
+import org.jsmpp.DefaultPDUSender;
+import org.jsmpp.InvalidCommandLengthException;
+import org.jsmpp.PDUReader;
+import org.jsmpp.PDUSender;
+import org.jsmpp.PDUStringException;
+import org.jsmpp.SMPPConstant;
+import org.jsmpp.bean.Command;
+import org.jsmpp.bean.DataCoding;
+import org.jsmpp.bean.ESMClass;
+import org.jsmpp.bean.NumberingPlanIndicator;
+import org.jsmpp.bean.OptionalParameter;
+import org.jsmpp.bean.RegisteredDelivery;
+import org.jsmpp.bean.TypeOfNumber;
+import org.jsmpp.session.SMPPSession;
+import org.jsmpp.session.connection.socket.SocketConnectionFactory;
+
+/**
+ * Monitors the traffic of a single SMPP session.  The monitor intercepts the PDUs
+ * that are written to and read from the session, to measure the enquire link round
+ * trip time, to count failed responses by command status and to track the time of
+ * the last response.  The monitor does not allocate on the hot path.
+ * <p>
+ * The monitor also measures the submit round trip time of the session, which the
+ * background maintenance task uses to adapt the transaction timer of the session
+ * to the observed 99th percentile, and to shorten the enquire link timer while
+ * requests are outstanding, so that a stalled session is probed promptly.  The
+ * enquire link timer of jsmpp is a read inactivity timer, so no enquire links are
+ * sent while responses are flowing.
+ * <p>
+ * Finally the monitor tracks the health of the session.  A session is unhealthy
+ * when jsmpp no longer considers it bound, when too many consecutive requests
+ * have timed out, or when nothing has been read from the SMSC for longer than an
+ * enquire link round, which catches half-open sockets.  The maintenance task
+ * closes unhealthy sessions so that the pool replaces them.
+ * <p>
+ * A session which was bound with an earlier generation of the configuration is
+ * retired by the maintenance task, one session at a time.  A retired session is
+ * no longer valid, so the pool unbinds it gracefully once it is idle, and binds
+ * a replacement with the current configuration.
+ * @author Melior
+ * @since 2.3
+ */
+class SessionMonitor {
+
+    private static final int MINIMUM_SAMPLES = 20;
+
+    private static final int SEQUENCE_MASK = 255;
+
+    private SmppClientConfig configuration;
+
+    private SmppMetrics metrics;
+
+    private SMPPSession session;
+
+    private Connection connection;
+
+    private volatile int enquireLinkSequence;
+
+    private volatile long enquireLinkTime;
+
+    private volatile long lastResponseTime;
+
+    private volatile long lastReadTime;
+
+    private AtomicInteger consecutiveTimeouts;
+
+    private volatile boolean evicted;
+
+    private volatile boolean retired;
+
+    private int generation;
+
+    private AtomicLongArray submitTimes;
+
+    private AtomicIntegerArray submitSequences;
+
+    private LatencyHistogram submitLatency;
+
+    /**
+     * Constructor.
+     * @param configuration The client configuration
+     * @param metrics The SMPP metrics
+     */
+    SessionMonitor(
+        final SmppClientConfig configuration,
+        final SmppMetrics metrics) {
+
+        super();
+
+        this.configuration = configuration;
+        this.metrics = metrics;
+
+        submitTimes = new AtomicLongArray(SEQUENCE_MASK + 1);
+        submitSequences = new AtomicIntegerArray(SEQUENCE_MASK + 1);
+        submitLatency = new LatencyHistogram();
+        consecutiveTimeouts = new AtomicInteger();
+
+        enquireLinkSequence = -1;
+        lastResponseTime = System.nanoTime();
+        lastReadTime = lastResponseTime;
+    }
+
+    /**
+     * Open monitored session.
+     * @return The monitored session
+     */
+    SMPPSession openSession() {
+
+        session = new SMPPSession(createSender(), createReader(), SocketConnectionFactory.getInstance());
+
+        return session;
+    }
+
+    /**
+     * Activate monitoring once the session is bound.
+     * @param connection The pooled connection which wraps the session
+     */
+    void activate(
+        final Connection connection) {
+
+        this.connection = connection;
+
+        lastReadTime = System.nanoTime();
+        generation = configuration.getGeneration();
+
+        metrics.register(this);
+    }
+
+    /**
+     * Close monitored session.
+     */
+    void closeSession() {
+        metrics.deregister(this);
+    }
+
+    /**
+     * Get session identifier.
+     * @return The session identifier
+     */
+    String getId() {
+        return (session == null) ? null : session.getSessionId();
+    }
+
+    /**
+     * Get monitored session.
+     * @return The monitored session
+     */
+    SMPPSession getSession() {
+        return session;
+    }
+
+    /**
+     * Get number of unacknowledged requests in the session window.
+     * @return The number of unacknowledged requests
+     */
+    int getWindow() {
+        return (session == null) ? 0 : session.getUnacknowledgedRequests();
+    }
+
+    /**
+     * Get time of last response, as per {@code System.nanoTime}.
+     * @return The time of the last response
+     */
+    long getLastResponseTime() {
+        return lastResponseTime;
+    }
+
+    /**
+     * Record request timeout.
+     */
+    void recordTimeout() {
+        consecutiveTimeouts.incrementAndGet();
+    }
+
+    /**
+     * Check whether session is healthy.
+     * @return true if the session is healthy, false otherwise
+     */
+    boolean isHealthy() {
+
+        long silence;
+
+        if ((evicted == true) || (session == null) || (session.getSessionState().isBound() == false)) {
+            return false;
+        }
+
+        if (consecutiveTimeouts.get() >= configuration.getMaximumTimeouts()) {
+            return false;
+        }
+
+        silence = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReadTime);
+
+        return silence <= 2L * (session.getEnquireLinkTimer() + session.getTransactionTimer());
+    }
+
+    /**
+     * Check whether session is still valid.  A session is valid while it is healthy
+     * and has not been retired.
+     * @return true if the session is valid, false otherwise
+     */
+    boolean isValid() {
+        return (retired == false) && (isHealthy() == true);
+    }
+
+    /**
+     * Check whether session was bound with the current generation of the configuration.
+     * @return true if the session is current, false otherwise
+     */
+    boolean isCurrent() {
+        return generation == configuration.getGeneration();
+    }
+
+    /**
+     * Check whether session has been retired.
+     * @return true if the session has been retired, false otherwise
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Retire session.  The session remains bound until the pool closes it.
+     */
+    void retire() {
+        retired = true;
+    }
+
+    /**
+     * Get client configuration of the session.
+     * @return The client configuration
+     */
+    SmppClientConfig getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Retire session and close it immediately.  The session is closed through the
+     * pooled connection which wraps it, so that the connection unbinds the session
+     * and stops being monitored.
+     */
+    void unbind() {
+
+        retired = true;
+
+        if (connection != null) {
+            connection.close();
+        }
+        else if (session != null) {
+            session.unbindAndClose();
+        }
+
+    }
+
+    /**
+     * Evict session if it is unhealthy.  The session is closed, but remains in the
+     * pool until the pool finds that its connection is no longer valid.
+     * @return true if the session was evicted, false otherwise
+     */
+    boolean evict() {
+
+        if ((evicted == true) || (retired == true) || (session == null) || (isHealthy() == true)) {
+            return false;
+        }
+
+        evicted = true;
+
+        session.close();
+
+        return true;
+    }
+
+    /**
+     * Maintain session timers.  The transaction timer is set to the 99th percentile
+     * of the submit round trip time since the previous maintenance, multiplied by
+     * the adaptive timeout factor and clamped between the minimum request timeout
+     * and the request timeout.  The enquire link timer is set to the transaction
+     * timer while requests are outstanding, and to the connection timeout when the
+     * session is idle.
+     */
+    void maintain() {
+
+        int factor;
+        long percentile;
+        long transactionTimer;
+        int enquireLinkTimer;
+
+        factor = configuration.getAdaptiveTimeoutFactor();
+
+        if ((factor == 0) || (session == null) || (session.getSessionState().isBound() == false)) {
+            return;
+        }
+
+        if (submitLatency.getCount() >= MINIMUM_SAMPLES) {
+            percentile = (long) Math.ceil(submitLatency.getPercentile(99, TimeUnit.MILLISECONDS));
+            submitLatency.reset();
+
+            transactionTimer = Math.min(Math.max(percentile * factor, configuration.getMinimumRequestTimeout()),
+                configuration.getRequestTimeout());
+
+            if (transactionTimer != session.getTransactionTimer()) {
+                session.setTransactionTimer(transactionTimer);
+            }
+
+        }
+
+        enquireLinkTimer = (getWindow() > 0) ? (int) session.getTransactionTimer() : configuration.getConnectionTimeout();
+
+        if (enquireLinkTimer != session.getEnquireLinkTimer()) {
+            session.setEnquireLinkTimer(enquireLinkTimer);
+        }
+
+    }
+
+    /**
+     * Create PDU sender which records the time at which enquire links and submits
+     * are sent.
+     * @return The PDU sender
+     */
+    private PDUSender createSender() {
+
+        return new DefaultPDUSender() {
+
+            public byte[] sendSubmitSm(
+                final OutputStream os,
+                final int sequenceNumber,
+                final String serviceType,
+                final TypeOfNumber sourceAddrTon,
+                final NumberingPlanIndicator sourceAddrNpi,
+                final String sourceAddr,
+                final TypeOfNumber destAddrTon,
+                final NumberingPlanIndicator destAddrNpi,
+                final String destinationAddr,
+                final ESMClass esmClass,
+                final byte protocolId,
+                final byte priorityFlag,
+                final String scheduleDeliveryTime,
+                final String validityPeriod,
+                final RegisteredDelivery registeredDelivery,
+                final byte replaceIfPresent,
+                final DataCoding dataCoding,
+                final byte smDefaultMsgId,
+                final byte[] shortMessage,
+                final OptionalParameter... optionalParameters) throws PDUStringException, IOException {
+
+                onSubmit(sequenceNumber);
+
+                return super.sendSubmitSm(os, sequenceNumber, serviceType, sourceAddrTon, sourceAddrNpi, sourceAddr,
+                    destAddrTon, destAddrNpi, destinationAddr, esmClass, protocolId, priorityFlag, scheduleDeliveryTime,
+                    validityPeriod, registeredDelivery, replaceIfPresent, dataCoding, smDefaultMsgId, shortMessage,
+                    optionalParameters);
+            }
+
+            public byte[] sendEnquireLink(
+                final OutputStream os,
+                final int sequenceNumber) throws IOException {
+
+                enquireLinkTime = System.nanoTime();
+                enquireLinkSequence = sequenceNumber;
+
+                return super.sendEnquireLink(os, sequenceNumber);
+            }
+
+        };
+    }
+
+    /**
+     * Create PDU reader which inspects the header of every response that is read.
+     * @return The PDU reader
+     */
+    private PDUReader createReader() {
+
+        return new DefaultPDUReader() {
+
+            public Command readPDUHeader(
+                final DataInputStream in) throws InvalidCommandLengthException, IOException {
+
+                Command header;
+
+                header = super.readPDUHeader(in);
+
+                lastReadTime = System.nanoTime();
+
+                if ((header.getCommandId() & SMPPConstant.MASK_CID_RESP) != 0) {
+                    onResponse(header);
+                }
+
+                return header;
+            }
+
+        };
+    }
+
+    /**
+     * Sample the submit time of a request.  The sample is skipped if its slot is
+     * still taken by an earlier request which is waiting for its response, unless
+     * that request has outlived the request timeout, so that a response is never
+     * measured against the submit time of another request.
+     * @param sequenceNumber The sequence number of the request
+     */
+    private void onSubmit(
+        final int sequenceNumber) {
+
+        long now;
+        long previous;
+        int slot;
+
+        now = System.nanoTime();
+        slot = sequenceNumber & SEQUENCE_MASK;
+        previous = submitTimes.get(slot);
+
+        if ((previous != 0) && ((now - previous) < TimeUnit.MILLISECONDS.toNanos(configuration.getRequestTimeout()))) {
+            return;
+        }
+
+        if (submitTimes.compareAndSet(slot, previous, now) == true) {
+            submitSequences.set(slot, sequenceNumber);
+        }
+
+    }
+
+    /**
+     * Handle response.
+     * @param header The response header
+     */
+    private void onResponse(
+        final Command header) {
+
+        long now;
+        long submitTime;
+        int slot;
+
+        now = System.nanoTime();
+
+        lastResponseTime = now;
+
+        if ((header.getCommandId() == SMPPConstant.CID_ENQUIRE_LINK_RESP)
+            && (header.getSequenceNumber() == enquireLinkSequence)) {
+            metrics.recordEnquireLink(now - enquireLinkTime);
+        }
+        else if (header.getCommandId() == SMPPConstant.CID_SUBMIT_SM_RESP) {
+            consecutiveTimeouts.set(0);
+
+            slot = header.getSequenceNumber() & SEQUENCE_MASK;
+
+            if (submitSequences.get(slot) == header.getSequenceNumber()) {
+                submitTime = submitTimes.getAndSet(slot, 0);
+
+                if (submitTime != 0) {
+                    submitLatency.record(now - submitTime);
+                }
+
+            }
+
+        }
+
+        metrics.recordResponse(header.getCommandId(), header.getCommandStatus());
+    }
+
+}
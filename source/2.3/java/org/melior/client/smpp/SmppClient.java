@@ -7,15 +7,24 @@
         Service Harness
 */
 package org.melior.client.smpp;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import org.jsmpp.bean.BindType;
 import org.jsmpp.bean.DataCoding;
 import org.jsmpp.bean.ESMClass;
-import org.jsmpp.bean.GeneralDataCoding;
 import org.jsmpp.bean.OptionalParameter;
 import org.jsmpp.bean.RegisteredDelivery;
-import org.jsmpp.bean.SMSCDeliveryReceipt;
 import org.jsmpp.extra.NegativeResponseException;
 import org.jsmpp.session.ClientSession;
 import org.jsmpp.session.SubmitSmResult;
@@ -23,9 +32,11 @@ import org.melior.client.exception.RemotingException;
 import org.melior.logging.core.Logger;
 import org.melior.logging.core.LoggerFactory;
 import org.melior.server.smpp.SmppListener;
+import org.melior.server.smpp.SmppReceipt;
 import org.melior.service.exception.ExceptionType;
+import org.melior.util.exception.ExceptionUtil;
 import org.melior.util.object.ObjectUtil;
-import org.melior.util.time.Timer;
+import org.reactivestreams.Publisher;
 import org.springframework.util.StringUtils;
 
 /**
@@ -46,166 +57,1036 @@ public class SmppClient extends SmppClientConfig {
 
     private boolean flipMmts;
 
-    private ConnectionManager connectionManager;
+    private volatile ConnectionManager connectionManager;
+
+    private volatile ConnectionManager receiverManager;
+
+    private volatile SmppClientConfig receiverConfig;
+
+    private boolean dedicatedReceivers;
 
     private Random messageNumber;
 
-    private SmppListener listener;
+    private volatile SmppListener listener;
+
+    private volatile int listenerShard;
+
+    private SmppMetrics metrics;
+
+    private SmppTracer tracer;
+
+    private volatile SubmitTemplate template;
+
+    private ExecutorService executor;
+
+    private ExecutorService bulkExecutor;
+
+    private ResizableSemaphore bulkPermits;
+
+    private volatile TimerWheel timerWheel;
+
+    private LongAdder inFlight;
+
+    private Set<CompletableFuture<String>> pendingSends;
+
+    private volatile ReceiptWaiters receiptWaiters;
+
+    private volatile boolean draining;
+
+    private volatile boolean receiversUnbound;
+
+    private volatile boolean payloadRejected;
+
+    private volatile DestinationPinning pinning;
+
+    private volatile MessageCoalescer coalescer;
+
+    private SessionMaintainer maintainer;
+
+    /**
+     * Constructor.
+     * @param bindType The bind type
+     * @param flipMmts The flip more-messages-to-send indicator
+     */
+    SmppClient(
+        final BindType bindType,
+        final boolean flipMmts) {
+
+        super();
+
+        this.bindType = bindType;
+
+        this.flipMmts = flipMmts;
+
+        messageNumber = new Random();
+
+        tracer = new SmppTracer(logger, this::getTraceSampleRate);
+
+        inFlight = new LongAdder();
+
+        pendingSends = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Configure client.
+     * @param clientConfig The new client configuration parameters
+     * @return The SMPP client
+     */
+    public SmppClient configure(
+        final SmppClientConfig clientConfig) {
+
+        String bindKey;
+        int generation;
+
+        bindKey = getBindKey();
+        generation = getGeneration();
+
+        super.configure(clientConfig);
+
+        setGeneration((bindKey.equals(getBindKey()) == true) ? generation : generation + 1);
+
+        template = null;
+
+        if (connectionManager != null) {
+            reconfigure();
+        }
+
+        return this;
+    }
+
+    /**
+     * Apply new configuration to the running client, without unbinding all sessions.
+     * Message settings take effect with the next submit.  The pools, executors and
+     * bulk permits are resized in place, so that the pools grow as connections are
+     * needed, and shrink as surplus connections are released, and bulk sends which
+     * still hold permits never exceed the new limit.  If the settings which apply
+     * when a connection is bound have changed, then the maintenance task replaces
+     * the sessions one at a time, without taking the whole pool.  Changes to the
+     * number of receiver connections only resize an existing receiver pool.
+     */
+    private void reconfigure() {
+
+        if (receiverConfig != null) {
+            receiverConfig.configure(this);
+            receiverConfig.setConnections(getReceiverConnections());
+        }
+
+        bulkPermits.resize(Math.max(getConnections() - getReservedConnections(), 1));
+
+        payloadRejected = false;
+
+        configureOrdering();
+
+        SmppExecutors.resize(executor, getConnections());
+
+        if (bulkExecutor != executor) {
+            SmppExecutors.resize(bulkExecutor, bulkPermits.getLimit());
+        }
+
+    }
+
+    /**
+     * Initialize client.  The client is initialized once, by the first thread which
+     * uses it, and the connection manager is assigned last, so that other threads
+     * only use the client once it has been fully initialized.
+     * @throws RemotingException if unable to initialize the client
+     */
+    private void initialize() throws RemotingException {
+
+        if (connectionManager != null) {
+            return;
+        }
+
+        synchronized (this) {
+
+            if (connectionManager != null) {
+                return;
+            }
+
+            if (StringUtils.hasLength(getUrl()) == false) {
+                throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "URL must be configured.");
+            }
+
+            if (StringUtils.hasLength(getUsername()) == false) {
+                throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "User name must be configured.");
+            }
+
+            if (StringUtils.hasLength(getPassword()) == false) {
+                throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Password must be configured.");
+            }
+
+            metrics = SmppMetrics.create("smpp.client." + (StringUtils.hasLength(getName()) ? getName() : "default"));
+
+            executor = SmppExecutors.newExecutor("smpp-client", isVirtualThreads(), getConnections());
+
+            bulkPermits = new ResizableSemaphore(Math.max(getConnections() - getReservedConnections(), 1));
+
+            bulkExecutor = (getReservedConnections() > 0)
+                ? SmppExecutors.newExecutor("smpp-client-bulk", isVirtualThreads(), bulkPermits.getLimit())
+                : executor;
+
+            configureOrdering();
+
+            maintainer = new SessionMaintainer(metrics, this::replenish);
+            maintainer.start("smpp-client-maintenance");
+
+            dedicatedReceivers = (getReceiverConnections() > 0);
+
+            if (dedicatedReceivers == true) {
+                connectionManager = new ConnectionManager(this, new ConnectionFactory(this, BindType.BIND_TX, this, metrics));
+            }
+            else {
+                connectionManager = new ConnectionManager(this, new ConnectionFactory(this, bindType, this, metrics));
+            }
+
+        }
+
+    }
+
+    /**
+     * Configure destination pinning and message coalescing.  The stripes are resized
+     * in place when the number of connections changes, and the coalescer is only
+     * rebuilt when the coalescing window changes.
+     */
+    private void configureOrdering() {
+
+        DestinationPinning pinning;
+        MessageCoalescer coalescer;
+
+        pinning = this.pinning;
+
+        if (isPinnedDestinations() == false) {
+            this.pinning = null;
+        }
+        else if (pinning == null) {
+            this.pinning = new DestinationPinning(getConnections());
+        }
+        else if (pinning.getStripeCount() != getConnections()) {
+            pinning.resize(getConnections());
+        }
+
+        coalescer = this.coalescer;
+
+        if (getCoalesceWindow() == 0) {
+            this.coalescer = null;
+        }
+        else if ((coalescer == null) || (coalescer.getWindow() != getCoalesceWindow())) {
+            this.coalescer = new MessageCoalescer(getCoalesceWindow());
+        }
+
+    }
+
+    /**
+     * Initialize dedicated receiver pool.  The receiver pool has its own copy of the
+     * client configuration, sized to the number of receiver connections.  The pool is
+     * only created when the receivers are bound, once a listener has been attached
+     * to the client, so that no receiver session is ever bound without a listener.
+     * @throws RemotingException if unable to initialize the receiver pool
+     */
+    private synchronized void initializeReceivers() throws RemotingException {
+
+        SmppClientConfig configuration;
+
+        if (receiverManager != null) {
+            return;
+        }
+
+        configuration = new SmppClientConfig().configure(this);
+        configuration.setConnections(getReceiverConnections());
+
+        receiverManager = new ConnectionManager(configuration, new ConnectionFactory(configuration, BindType.BIND_RX, this, metrics));
+
+        receiverConfig = configuration;
+    }
+
+    /**
+     * Bind receiver sessions.  If the client has a dedicated receiver pool, then all
+     * of its sessions are bound, otherwise all sessions of the shared pool are bound,
+     * unless the client only transmits.  Receiver sessions only receive messages and
+     * receipts while they are bound, so this is called when a listener starts.
+     * @throws RemotingException if unable to bind the receiver sessions
+     */
+    public void bindReceivers() throws RemotingException {
+
+        initialize();
+
+        if (dedicatedReceivers == true) {
+            initializeReceivers();
+
+            borrowAll(receiverManager, getReceiverConnections());
+        }
+        else if (bindType != BindType.BIND_TX) {
+            borrowAll(connectionManager, getConnections());
+        }
+
+    }
+
+    /**
+     * Drain client.  The client stops accepting new sends, and scheduled sends which
+     * are not yet due are cancelled.  The client then waits for the sends in progress,
+     * including asynchronous sends which are still queued, to complete, and for the
+     * session windows to empty, until the timeout expires.  Asynchronous sends which
+     * have not completed by then are failed, callers which still wait for receipts
+     * are failed, and all pooled connections are closed.  The client cannot be used
+     * again after it has been drained.
+     * @param timeout The timeout in milliseconds
+     * @return The report of what was left over
+     */
+    public SmppDrainReport drain(
+        final long timeout) {
+
+        String methodName = "drain";
+        long deadline;
+        long scheduled = 0;
+        long sends;
+        long requests;
+        SmppDrainReport report;
+
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        draining = true;
+
+        if (connectionManager == null) {
+            return SmppDrainReport.of(0, 0, 0, 0);
+        }
+
+        maintainer.stop();
+
+        try {
+
+            if (timerWheel != null) {
+                scheduled = timerWheel.flush();
+            }
+
+            while (((inFlight.sum() > 0) || (getWindow(null) > 0)) && (System.nanoTime() < deadline)) {
+                Thread.sleep(10);
+            }
+
+            executor.shutdown();
+            bulkExecutor.shutdown();
+
+            executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            bulkExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        sends = inFlight.sum();
+
+        for (CompletableFuture<String> future : pendingSends) {
+            future.completeExceptionally(new RemotingException(ExceptionType.LOCAL_APPLICATION, "Client was drained before the message was sent."));
+        }
+
+        executor.shutdownNow();
+        bulkExecutor.shutdownNow();
+
+        requests = getWindow(null);
+
+        report = SmppDrainReport.of(sends, requests, scheduled, 0);
+
+        unbind(null);
+
+        if (receiptWaiters != null) {
+            receiptWaiters.stop();
+        }
+
+        metrics.close();
+
+        logger.info(methodName, "Client drained: ", report);
+
+        return report;
+    }
+
+    /**
+     * Unbind receiver sessions.  Only a dedicated receiver pool is unbound, since
+     * the sessions of a shared pool also carry the sends of the client.
+     */
+    public void unbindReceivers() {
+
+        if (receiverConfig == null) {
+            return;
+        }
+
+        receiversUnbound = true;
+
+        unbind(receiverConfig);
+    }
+
+    /**
+     * Get number of unacknowledged requests in the windows of the sessions of the
+     * client.
+     * @param configuration The configuration of the pool, or null for all pools
+     * @return The number of unacknowledged requests
+     */
+    private long getWindow(
+        final SmppClientConfig configuration) {
+
+        long window = 0;
+
+        for (SessionMonitor session : metrics.getSessions()) {
+
+            if (isOwned(session, configuration) == true) {
+                window += session.getWindow();
+            }
+
+        }
+
+        return window;
+    }
+
+    /**
+     * Close the pooled connections of the client, which unbinds their sessions.
+     * @param configuration The configuration of the pool, or null for all pools
+     */
+    private void unbind(
+        final SmppClientConfig configuration) {
+
+        for (SessionMonitor session : metrics.getSessions()) {
+
+            if (isOwned(session, configuration) == true) {
+                ExceptionUtil.swallow(() -> session.unbind());
+            }
+
+        }
+
+    }
+
+    /**
+     * Check whether a session belongs to the client.
+     * @param session The session monitor
+     * @param configuration The configuration of the pool, or null for all pools
+     * @return true if the session belongs to the pool, false otherwise
+     */
+    private boolean isOwned(
+        final SessionMonitor session,
+        final SmppClientConfig configuration) {
+
+        if (configuration != null) {
+            return session.getConfiguration() == configuration;
+        }
+
+        return (session.getConfiguration() == this) || (session.getConfiguration() == receiverConfig);
+    }
+
+    /**
+     * Check whether the client is draining.
+     * @throws RemotingException if the client is draining
+     */
+    private void checkDraining() throws RemotingException {
+
+        if (draining == true) {
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Client is draining.");
+        }
+
+    }
+
+    /**
+     * Replenish pools.  The evicted and retired sessions of each pool are cycled out,
+     * so that the pool replaces them before senders are routed to them.  This also
+     * applies to the receiver pool, which senders never borrow from.
+     */
+    private void replenish() {
+
+        if (draining == true) {
+            return;
+        }
+
+        ExceptionUtil.swallow(() -> cycle(connectionManager, this));
+
+        if ((receiverManager != null) && (receiversUnbound == false)) {
+            ExceptionUtil.swallow(() -> cycle(receiverManager, receiverConfig));
+        }
+
+    }
+
+    /**
+     * Cycle the invalid connections of a pool.  Connections are borrowed one at a
+     * time, and held, until the pool has come across every invalid connection and
+     * replaced it.  Borrowing stops as soon as no invalid session is left, and never
+     * takes more connections than there are valid sessions, so that senders are only
+     * held up while the replacements are bound.  An invalid connection which is in
+     * use by a sender is cycled by the next maintenance run.
+     * @param manager The connection manager
+     * @param configuration The configuration of the pool
+     * @throws RemotingException if unable to borrow a connection
+     */
+    private void cycle(
+        final ConnectionManager manager,
+        final SmppClientConfig configuration) throws RemotingException {
+
+        List<ClientSession> sessions;
+
+        sessions = new ArrayList<ClientSession>();
+
+        try {
+
+            while ((countSessions(configuration, false) > 0) && (sessions.size() < countSessions(configuration, true))) {
+                sessions.add(manager.getConnection());
+            }
+
+        }
+        finally {
+
+            for (ClientSession session : sessions) {
+                session.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * Count the monitored sessions of a pool.
+     * @param configuration The configuration of the pool
+     * @param valid true to count the valid sessions, false to count the invalid sessions
+     * @return The number of sessions
+     */
+    private int countSessions(
+        final SmppClientConfig configuration,
+        final boolean valid) {
+
+        int count = 0;
+
+        for (SessionMonitor session : metrics.getSessions()) {
+
+            if ((isOwned(session, configuration) == true) && (session.isValid() == valid)) {
+                count++;
+            }
+
+        }
+
+        return count;
+    }
+
+    /**
+     * Borrow all connections of a pool at once, and release them again.
+     * @param manager The connection manager
+     * @param count The number of connections in the pool
+     * @throws RemotingException if unable to borrow the connections
+     */
+    private void borrowAll(
+        final ConnectionManager manager,
+        final int count) throws RemotingException {
+
+        List<ClientSession> sessions;
+
+        sessions = new ArrayList<ClientSession>(count);
+
+        try {
+
+            for (int i = 0; i < count; i++) {
+                sessions.add(manager.getConnection());
+            }
+
+        }
+        finally {
+
+            for (ClientSession session : sessions) {
+                session.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * Send message asynchronously.  The synchronous send runs on a virtual thread if
+     * the client is configured to use virtual threads and the runtime supports them,
+     * otherwise on a pool of platform threads.  Bulk messages queue separately from
+     * other messages when connections are reserved for priority traffic.  When
+     * destinations are pinned, then messages to the same destination are sent in
+     * the order in which they were passed to this method.
+     * @param message The SMPP message
+     * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
+     * @return The future message identifier
+     * @throws RemotingException if unable to initialize the client
+     */
+    public CompletableFuture<String> sendAsync(
+        final SmppMessage message,
+        final boolean registeredDelivery) throws RemotingException {
+
+        ExecutorService executor;
+        DestinationPinning pinning;
+        CompletableFuture<String> future;
+
+        checkDraining();
+
+        initialize();
+
+        executor = (message.getPriority() == SmppPriority.BULK) ? bulkExecutor : this.executor;
+
+        future = new CompletableFuture<String>();
+
+        inFlight.increment();
+        pendingSends.add(future);
+
+        future.whenComplete((messageId, exception) -> {
+            pendingSends.remove(future);
+
+            inFlight.decrement();
+        });
+
+        pinning = this.pinning;
+
+        if (pinning != null) {
+            pinning.chain(message.getDestinationAddress(), executor, () -> deliver(message, registeredDelivery), future);
+
+            return future;
+        }
+
+        try {
+
+            executor.execute(() -> {
+
+                try {
+
+                    if (future.isDone() == false) {
+                        future.complete(deliver(message, registeredDelivery));
+                    }
+
+                }
+                catch (Throwable exception) {
+                    future.completeExceptionally(exception);
+                }
+
+            });
+
+        }
+        catch (RejectedExecutionException exception) {
+            future.completeExceptionally(new RemotingException(ExceptionType.LOCAL_APPLICATION, "Client is draining.", exception));
+        }
+
+        return future;
+    }
+
+    /**
+     * Send message.
+     * @param message The SMPP message
+     * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
+     * @return The message identifier
+     * @throws RemotingException if unable to send the message
+     */
+    public String send(
+        final SmppMessage message,
+        final boolean registeredDelivery) throws RemotingException {
+
+        inFlight.increment();
+
+        try {
+
+            checkDraining();
+
+            return deliver(message, registeredDelivery);
+        }
+        finally {
+
+            inFlight.decrement();
+        }
+
+    }
+
+    /**
+     * Deliver message to the SMSC.  Asynchronous sends which were accepted before the
+     * client started draining are delivered through here, so that they are still
+     * sent while the client drains.
+     * @param message The SMPP message
+     * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
+     * @return The message identifier
+     * @throws RemotingException if unable to send the message
+     */
+    private String deliver(
+        final SmppMessage message,
+        final boolean registeredDelivery) throws RemotingException {
+
+        initialize();
+
+        return deliver(new MessageSubmission(message, registeredDelivery));
+    }
+
+    /**
+     * Deliver submission to the SMSC.  Identical submissions are coalesced if the
+     * client is configured to do so.
+     * @param submission The submission
+     * @return The message identifier
+     * @throws RemotingException if unable to send the message
+     */
+    private String deliver(
+        final Submission submission) throws RemotingException {
+
+        MessageCoalescer coalescer;
+
+        coalescer = this.coalescer;
+
+        if (coalescer != null) {
+            return coalescer.send(submission, this::submitPinned);
+        }
+
+        return submitPinned(submission);
+    }
+
+    /**
+     * Submit message.  Bulk messages first acquire a bulk permit.  When destinations
+     * are pinned, then the message is submitted while holding the lock of the
+     * stripe to which its destination is pinned.  The permit is acquired before the
+     * lock, so that a sender which waits for a permit does not hold up the other
+     * destinations on its stripe.
+     * @param submission The submission
+     * @return The message identifier
+     * @throws RemotingException if unable to submit the message
+     */
+    private String submitPinned(
+        final Submission submission) throws RemotingException {
+
+        DestinationPinning pinning;
+        SubmitHold hold;
+
+        pinning = this.pinning;
+
+        hold = new SubmitHold((submission.isBulk() == true) ? bulkPermits : null,
+            (pinning == null) ? null : pinning.getLock(submission.getDestinationAddress()));
+
+        try {
+
+            hold.acquire(getRequestTimeout());
+
+            return submit(submission, hold);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Interrupted while waiting for a bulk connection.", exception);
+        }
+        finally {
+
+            hold.release();
+        }
+
+    }
+
+    /**
+     * Submit message.  The parts of the message are sent on the same connection,
+     * and each part is retried if it fails with a transient error.  The connection
+     * is returned to the pool before the retry, which borrows a connection again,
+     * so the retry may well go out on the same session.  While the part backs off,
+     * the bulk permit and the stripe lock are released, so that the wait does not
+     * hold up other senders, and a later message to the same destination may be
+     * submitted ahead of the retry.
+     * @param submission The submission
+     * @param hold The bulk permit and stripe lock of the submission
+     * @return The message identifier
+     * @throws RemotingException if unable to submit the message
+     */
+    private String submit(
+        final Submission submission,
+        final SubmitHold hold) throws RemotingException {
+
+        String methodName = "send";
+        boolean sampled;
+        long startTime;
+        ClientSession connection;
+        SubmitSmResult response;
+        String messageId = null;
+
+        sampled = tracer.isSampled();
+
+        if (tracer.isTraced(sampled) == true) {
+            tracer.trace(methodName, sampled, "message = ", submission);
+        }
+
+        startTime = System.nanoTime();
+
+        connection = null;
+
+        try {
+
+            try {
+
+                for (int i = 0; i < submission.getPartCount(); i++) {
+
+                    for (int attempt = 1; ; attempt++) {
+
+                        try {
+
+                            if (connection == null) {
+                                connection = connectionManager.getConnection();
+                            }
+
+                            response = submission.send(connection, i);
+
+                            break;
+                        }
+                        catch (Exception exception) {
+
+                            if (connection != null) {
+                                connection.close();
+
+                                connection = null;
+                            }
+
+                            if (submission.fallback(exception) == true) {
+                                logger.warn(methodName, "Message rejected by SMSC, sending it again in parts: ", exception.getMessage());
+
+                                i = 0;
+                                attempt = 0;
+
+                                continue;
+                            }
+
+                            if ((attempt > getRetries()) || (RetryPolicy.isRetryable(exception, isAmbiguousRetries()) == false)) {
+                                throw exception;
+                            }
+
+                            if (tracer.isTraced(sampled) == true) {
+                                tracer.trace(methodName, sampled, "Part ", i + 1, " failed, retry ", attempt, ": ", exception.getMessage());
+                            }
+
+                            hold.release();
+
+                            Thread.sleep(RetryPolicy.getBackoff(this, attempt));
+
+                            hold.acquire(getRequestTimeout());
+                        }
+
+                    }
+
+                    messageId = ObjectUtil.coalesce(messageId, response.getMessageId());
+                }
+
+            }
+            finally {
+
+                if (connection != null) {
+                    connection.close();
+                }
+
+            }
+
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message sent successfully.  Duration = ", elapsedMillis(startTime), " ms.");
+
+                tracer.trace(methodName, sampled, "messageId = ", messageId);
+            }
+
+        }
+        catch (NegativeResponseException exception) {
+
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message send failed.  Duration = ", elapsedMillis(startTime), " ms.");
+            }
+
+            throw new RemotingException(ExceptionType.REMOTING_APPLICATION, exception.getMessage(), exception);
+        }
+        catch (RemotingException exception) {
+
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message send failed.  Duration = ", elapsedMillis(startTime), " ms.");
+            }
 
-    /**
-     * Constructor.
-     * @param bindType The bind type
-     * @param flipMmts The flip more-messages-to-send indicator
-     */
-    SmppClient(
-        final BindType bindType,
-        final boolean flipMmts) {
+            throw exception;
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
 
-        super();
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message send interrupted.  Duration = ", elapsedMillis(startTime), " ms.");
+            }
 
-        this.bindType = bindType;
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Interrupted while sending message.", exception);
+        }
+        catch (Exception exception) {
 
-        this.flipMmts = flipMmts;
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message send failed.  Duration = ", elapsedMillis(startTime), " ms.");
+            }
 
-        messageNumber = new Random();
+            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, exception.getMessage(), exception);
+        }
+        catch (Throwable exception) {
+            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, "Failed to send message: " + exception.getMessage(), exception);
+        }
+
+        return messageId;
     }
 
     /**
-     * Configure client.
-     * @param clientConfig The new client configuration parameters
-     * @return The SMPP client
+     * Send raw message.  The fields of the submit are taken from a pre-built template,
+     * and the short message is sent as is, so the caller controls the encoding, the
+     * ESM class, the protocol identifier and the TLVs of the submit.  Raw messages
+     * are not segmented, but otherwise take the same path as other messages, so the
+     * bulk permits apply when the priority flag of the template is that of bulk
+     * messages, and the destination pinning, coalescing, retries and tracing apply.
+     * @param pduTemplate The PDU template
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @param shortMessage The pre-encoded short message
+     * @return The message identifier
+     * @throws RemotingException if unable to send the message
      */
-    public SmppClient configure(
-        final SmppClientConfig clientConfig) {
-        super.configure(clientConfig);
+    public String send(
+        final SmppPduTemplate pduTemplate,
+        final String sourceAddress,
+        final String destinationAddress,
+        final byte[] shortMessage) throws RemotingException {
 
-        return this;
-    }
+        inFlight.increment();
 
-    /**
-     * Initialize client.
-     * @throws RemotingException if unable to initialize the client
-     */
-    private void initialize() throws RemotingException {
+        try {
 
-        if (connectionManager != null) {
-            return;
-        }
+            checkDraining();
 
-        if (StringUtils.hasLength(getUrl()) == false) {
-            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "URL must be configured.");
-        }
+            initialize();
 
-        if (StringUtils.hasLength(getUsername()) == false) {
-            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "User name must be configured.");
+            return deliver(new RawSubmission(pduTemplate, sourceAddress, destinationAddress, shortMessage));
         }
+        finally {
 
-        if (StringUtils.hasLength(getPassword()) == false) {
-            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Password must be configured.");
+            inFlight.decrement();
         }
 
-        connectionManager = new ConnectionManager(this, new ConnectionFactory(this, bindType, listener));
     }
 
     /**
-     * Send message.
+     * Send message with registered delivery, and return a handle on which to wait for
+     * its final receipt.  The receipt is delivered to the handle by the listener of
+     * the client, in addition to the receipt processor of the listener, so the client
+     * must be attached to a started listener.
      * @param message The SMPP message
-     * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
-     * @return The message identifier
+     * @param timeout The time to wait for the receipt, in milliseconds, after which the handle expires
+     * @return The receipt handle
      * @throws RemotingException if unable to send the message
      */
-    public String send(
+    public SmppReceiptHandle sendForReceipt(
         final SmppMessage message,
-        final boolean registeredDelivery) throws RemotingException {
+        final long timeout) throws RemotingException {
 
-        String methodName = "send";
-        Timer timer;
-        ClientSession connection;
-        DataCoding dataCoding;
-	    short messageReference;
-        String[] segments;
-        byte segmentSeq;
-        SubmitSmResult response;
-        String messageId = null;
-        long duration;
-
-        initialize();
+        ReceiptWaiters waiters;
+        String messageId;
 
-        logger.debug(methodName, "message = ", message);
+        waiters = getReceiptWaiters();
 
-        timer = Timer.ofNanos().start();
+        waiters.begin();
 
         try {
 
-            connection = connectionManager.getConnection();
+            messageId = send(message, true);
 
-            try {
+            return new SmppReceiptHandle(messageId, waiters.register(messageId, timeout));
+        }
+        finally {
 
-                dataCoding = getDataCoding();
+            waiters.end();
+        }
 
-                if (message.getMessageText().length() > 160) {
+    }
 
-                    messageReference = (short) messageNumber.nextInt();
+    /**
+     * Check whether the client has sent messages for which it waits for receipts.
+     * @return true if the client waits for receipts, false otherwise
+     */
+    public boolean isAwaitingReceipts() {
+        return receiptWaiters != null;
+    }
 
-                    segments = getSegments(message.getMessageText());
+    /**
+     * Complete the waiter of a receipt, if any.
+     * @param receipt The receipt
+     * @return true if a waiter was completed, false otherwise
+     */
+    public boolean completeReceipt(
+        final SmppReceipt receipt) {
 
-                    for (byte i = 0; i < segments.length; i++) {
+        ReceiptWaiters waiters;
 
-                        segmentSeq = (byte) (i + 1);
+        waiters = receiptWaiters;
 
-                        response = sendSegment(connection, message.getSourceAddress(), message.getDestinationAddress(),
-                            new ESMClass(), segments[i], getRegisteredDelivery((i == 0) && registeredDelivery), dataCoding,
-                            new OptionalParameter.More_messages_to_send((byte) (((segmentSeq == segments.length) ? 0 : 1) ^ ((flipMmts == true) ? 1 : 0))),
-                            new OptionalParameter.Sar_msg_ref_num(messageReference),
-                            new OptionalParameter.Sar_segment_seqnum(segmentSeq),
-                            new OptionalParameter.Sar_total_segments((byte) segments.length));
+        return (waiters != null) && (waiters.complete(receipt) == true);
+    }
 
-                        messageId = ObjectUtil.coalesce(messageId, response.getMessageId());
-                    }
+    /**
+     * Send message at a future time.  The message is held in an in-process timer
+     * wheel until the given time, and then sent asynchronously.  Unlike a scheduled
+     * delivery time on the message, the message is not submitted to the SMSC until
+     * the given time, so it is lost if the application stops before then.  The send
+     * does not take place if the returned future is cancelled beforehand.
+     * @param message The SMPP message
+     * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
+     * @param time The time at which to send the message
+     * @return The future message identifier
+     * @throws RemotingException if unable to initialize the client
+     */
+    public CompletableFuture<String> sendAt(
+        final SmppMessage message,
+        final boolean registeredDelivery,
+        final Instant time) throws RemotingException {
 
-                }
-                else {
+        CompletableFuture<String> future;
 
-                    response = sendSegment(connection, message.getSourceAddress(), message.getDestinationAddress(),
-                        new ESMClass(), message.getMessageText(), getRegisteredDelivery(registeredDelivery), dataCoding,
-                        new OptionalParameter.More_messages_to_send((byte) (0 ^ ((flipMmts == true) ? 1 : 0))));
+        checkDraining();
 
-                    messageId = response.getMessageId();
-                }
+        initialize();
 
-            }
-            finally {
+        future = new CompletableFuture<String>();
+
+        getTimerWheel().schedule(time.toEpochMilli(), () -> {
 
-                connection.close();
+            if (future.isDone() == true) {
+                return;
             }
 
-            duration = timer.elapsedTime(TimeUnit.MILLISECONDS);
+            try {
 
-            logger.debug(methodName, "Message sent successfully.  Duration = ", duration, " ms.");
+                sendAsync(message, registeredDelivery).whenComplete((messageId, exception) -> {
 
-            logger.debug(methodName, "messageId = ", messageId);
-        }
-        catch (NegativeResponseException exception) {
+                    if (exception == null) {
+                        future.complete(messageId);
+                    }
+                    else {
+                        future.completeExceptionally(exception);
+                    }
 
-            duration = timer.elapsedTime(TimeUnit.MILLISECONDS);
+                });
 
-            logger.debug(methodName, "Message send failed.  Duration = ", duration, " ms.");
+            }
+            catch (Throwable exception) {
+                future.completeExceptionally(exception);
+            }
 
-            throw new RemotingException(ExceptionType.REMOTING_APPLICATION, exception.getMessage(), exception);
-        }
-        catch (Exception exception) {
+        });
 
-            duration = timer.elapsedTime(TimeUnit.MILLISECONDS);
+        return future;
+    }
 
-            logger.debug(methodName, "Message send failed.  Duration = ", duration, " ms.");
+    /**
+     * Send messages from a publisher.  Messages are requested from the publisher
+     * only while the number of outstanding sends is below both the number of
+     * connections and the demand of the subscriber of the results, so that the
+     * client never buffers messages.  The returned publisher supports a single
+     * subscriber, and publishes the results in the order in which the sends
+     * complete.
+     * @param messages The publisher of SMPP messages
+     * @param registeredDelivery true if the messages should be sent using registered delivery, false otherwise
+     * @return The publisher of SMPP results
+     */
+    public Publisher<SmppResult> send(
+        final Publisher<SmppMessage> messages,
+        final boolean registeredDelivery) {
 
-            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, exception.getMessage(), exception);
-        }
-        catch (Throwable exception) {
-            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, "Failed to send message: " + exception.getMessage(), exception);
-        }
+        SendProcessor processor;
 
-        return messageId;
+        processor = new SendProcessor(this, registeredDelivery, getConnections());
+
+        messages.subscribe(processor);
+
+        return processor;
+    }
+
+    /**
+     * Get metrics.  The metrics are available once the client has been initialized.
+     * @return The SMPP metrics
+     */
+    public SmppMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -214,15 +1095,46 @@ public class SmppClient extends SmppClientConfig {
      */
     public void setListener(
         final SmppListener listener) {
+        setListener(listener, 0);
+    }
+
+    /**
+     * Set listener.
+     * @param listener The listener
+     * @param listenerShard The index of the shard of the listener which receives from this client
+     */
+    public void setListener(
+        final SmppListener listener,
+        final int listenerShard) {
+        this.listenerShard = listenerShard;
         this.listener = listener;
     }
 
+    /**
+     * Get listener.
+     * @return The listener, or null if no listener has been attached
+     */
+    SmppListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Get index of the shard of the listener which receives from this client.
+     * @return The index of the shard
+     */
+    int getListenerShard() {
+        return listenerShard;
+    }
+
     /**
      * Send message segment.
      * @param connection The SMPP connection
      * @param sourceAddress The source address
      * @param destinationAddress The destination address
      * @param esmClass The ESM class
+     * @param priorityFlag The priority flag
+     * @param scheduleDeliveryTime The scheduled delivery time
+     * @param validityPeriod The validity period
      * @param segmentText The message text
      * @param registeredDelivery The registered delivery directive
      * @param dataCoding The data coding
@@ -235,19 +1147,32 @@ public class SmppClient extends SmppClientConfig {
         final String sourceAddress,
         final String destinationAddress,
         final ESMClass esmClass,
+        final byte priorityFlag,
+        final String scheduleDeliveryTime,
+        final String validityPeriod,
         final String segmentText,
         final RegisteredDelivery registeredDelivery,
         final DataCoding dataCoding,
         final OptionalParameter... optionalParameters) throws Exception {
 
+        long startTime;
         SubmitSmResult response;
 
-        response = connection.submitShortMessage("",
-            getSourceTon(), getSourceNpi(), sourceAddress,
-            getDestinationTon(), getDestinationNpi(), destinationAddress,
-            esmClass, (byte) 0, (byte) 1, null, null, registeredDelivery,
-            (byte) 0, dataCoding, (byte) 0, segmentText.getBytes(),
-            optionalParameters);
+        startTime = System.nanoTime();
+
+        try {
+
+            response = connection.submitShortMessage("",
+                getSourceTon(), getSourceNpi(), sourceAddress,
+                getDestinationTon(), getDestinationNpi(), destinationAddress,
+                esmClass, (byte) 0, priorityFlag, scheduleDeliveryTime, validityPeriod, registeredDelivery,
+                (byte) 0, dataCoding, (byte) 0, segmentText.getBytes(),
+                optionalParameters);
+        }
+        finally {
+
+            metrics.recordSubmit(System.nanoTime() - startTime);
+        }
 
         return response;
     }
@@ -257,7 +1182,7 @@ public class SmppClient extends SmppClientConfig {
      * @param messageText The message text
      * @return The message segments
      */
-    private String[] getSegments(
+    String[] getSegments(
         final String messageText) {
 
         int segmentCount;
@@ -275,21 +1200,354 @@ public class SmppClient extends SmppClientConfig {
     }
 
     /**
-     * Get registered delivery directive.
-     * @param deliveryReceipt The delivery receipt indicator
-     * @return The registered delivery directive
+     * Get elapsed time in milliseconds.
+     * @param startTime The start time, as per {@code System.nanoTime}
+     * @return The elapsed time in milliseconds
+     */
+    private long elapsedMillis(
+        final long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Get receipt waiters.  The registry is created when the first message is sent
+     * with a receipt handle.
+     * @return The receipt waiters
+     */
+    private ReceiptWaiters getReceiptWaiters() {
+
+        ReceiptWaiters waiters;
+
+        waiters = receiptWaiters;
+
+        if (waiters == null) {
+
+            synchronized (this) {
+
+                waiters = receiptWaiters;
+
+                if (waiters == null) {
+                    waiters = new ReceiptWaiters(getRequestTimeout());
+
+                    receiptWaiters = waiters;
+                }
+
+            }
+
+        }
+
+        return waiters;
+    }
+
+    /**
+     * Get timer wheel.  The timer wheel is started when the first message is sent at
+     * a future time.
+     * @return The timer wheel
+     */
+    private TimerWheel getTimerWheel() {
+
+        TimerWheel timerWheel;
+
+        timerWheel = this.timerWheel;
+
+        if (timerWheel == null) {
+
+            synchronized (this) {
+
+                timerWheel = this.timerWheel;
+
+                if (timerWheel == null) {
+                    timerWheel = new TimerWheel(10);
+                    timerWheel.start("smpp-client-timer");
+
+                    this.timerWheel = timerWheel;
+                }
+
+            }
+
+        }
+
+        return timerWheel;
+    }
+
+    /**
+     * Get submit template.  The template is built once per configuration.
+     * @return The submit template
+     */
+    private SubmitTemplate getTemplate() {
+
+        SubmitTemplate template;
+
+        template = this.template;
+
+        if (template == null) {
+            template = new SubmitTemplate(this, flipMmts);
+
+            this.template = template;
+        }
+
+        return template;
+    }
+
+    /**
+     * Submission of an SMPP message.  Short messages are sent in a single part.  Long
+     * messages are sent in the message payload if the client is configured to do so,
+     * otherwise they are segmented.  If the SMSC rejects the message payload, then
+     * the message is segmented instead.
      */
-    private RegisteredDelivery getRegisteredDelivery(
-        final boolean deliveryReceipt) {
-        return new RegisteredDelivery((deliveryReceipt == true) ? SMSCDeliveryReceipt.SUCCESS_FAILURE : SMSCDeliveryReceipt.DEFAULT);
+    private class MessageSubmission extends Submission {
+
+        private SmppMessage message;
+
+        private boolean registeredDelivery;
+
+        private SubmitTemplate template;
+
+        private boolean payload;
+
+        private String[] segments;
+
+        private short messageReference;
+
+        private String scheduleDeliveryTime;
+
+        private String validityPeriod;
+
+        /**
+         * Constructor.
+         * @param message The SMPP message
+         * @param registeredDelivery true if the message should be sent using registered delivery, false otherwise
+         */
+        MessageSubmission(
+            final SmppMessage message,
+            final boolean registeredDelivery) {
+
+            super();
+
+            this.message = message;
+            this.registeredDelivery = registeredDelivery;
+
+            template = getTemplate();
+
+            payload = (message.getMessageText().length() > 160) && (payloadRejected == false)
+                && (message.getMessageText().length() <= getMaximumPayloadLength());
+
+            if ((message.getMessageText().length() > 160) && (payload == false)) {
+                segment();
+            }
+
+            scheduleDeliveryTime = SmppTime.absolute(message.getScheduleDeliveryTime());
+            validityPeriod = SmppTime.relative(message.getValidityPeriod());
+        }
+
+        /**
+         * Segment message.
+         */
+        private void segment() {
+
+            messageReference = (short) messageNumber.nextInt();
+
+            segments = getSegments(message.getMessageText());
+        }
+
+        /**
+         * Get destination address.
+         * @return The destination address
+         */
+        String getDestinationAddress() {
+            return message.getDestinationAddress();
+        }
+
+        /**
+         * Check whether the submission is bulk traffic.
+         * @return true if the submission is bulk traffic, false otherwise
+         */
+        boolean isBulk() {
+            return message.getPriority() == SmppPriority.BULK;
+        }
+
+        /**
+         * Get coalescing key.
+         * @return The coalescing key
+         */
+        Object getKey() {
+            return Arrays.asList(message.getDestinationAddress(), message.getSourceAddress(), registeredDelivery,
+                scheduleDeliveryTime, validityPeriod, message.getMessageText());
+        }
+
+        /**
+         * Get number of parts.
+         * @return The number of parts
+         */
+        int getPartCount() {
+            return (segments == null) ? 1 : segments.length;
+        }
+
+        /**
+         * Send part.
+         * @param connection The SMPP connection
+         * @param part The index of the part, starting at 0
+         * @return The response
+         * @throws Exception if unable to send the part
+         */
+        SubmitSmResult send(
+            final ClientSession connection,
+            final int part) throws Exception {
+
+            if (payload == true) {
+                return sendSegment(connection, message.getSourceAddress(), message.getDestinationAddress(),
+                    template.getEsmClass(), message.getPriority().getPriorityFlag(), scheduleDeliveryTime, validityPeriod, "", template.getRegisteredDelivery(registeredDelivery),
+                    template.getDataCoding(), template.getPayloadParameters(message.getMessageText().getBytes()));
+            }
+            else if (segments == null) {
+                return sendSegment(connection, message.getSourceAddress(), message.getDestinationAddress(),
+                    template.getEsmClass(), message.getPriority().getPriorityFlag(), scheduleDeliveryTime, validityPeriod, message.getMessageText(), template.getRegisteredDelivery(registeredDelivery),
+                    template.getDataCoding(), template.getSingleParameters());
+            }
+            else {
+                return sendSegment(connection, message.getSourceAddress(), message.getDestinationAddress(),
+                    template.getEsmClass(), message.getPriority().getPriorityFlag(), scheduleDeliveryTime, validityPeriod, segments[part], template.getRegisteredDelivery((part == 0) && registeredDelivery),
+                    template.getDataCoding(), template.getSegmentParameters(messageReference, part + 1, segments.length));
+            }
+
+        }
+
+        /**
+         * Segment the message if the SMSC rejected the message payload.
+         * @param exception The exception which caused the rejection
+         * @return true if the message must be sent again in segments, false otherwise
+         */
+        boolean fallback(
+            final Exception exception) {
+
+            if ((payload == false) || (RetryPolicy.isPayloadRejected(exception) == false)) {
+                return false;
+            }
+
+            payloadRejected = true;
+            payload = false;
+
+            segment();
+
+            return true;
+        }
+
+        /**
+         * Returns a string representation of the submission.
+         * @return The string representation
+         */
+        public String toString() {
+            return message.toString();
+        }
+
     }
 
     /**
-     * Get data coding.
-     * @return The data coding
+     * Submission of a raw message, which is sent as is in a single part.
      */
-    private DataCoding getDataCoding() {
-        return new GeneralDataCoding(getAlphabet(), getMessageClass(), false);
+    private class RawSubmission extends Submission {
+
+        private SmppPduTemplate pduTemplate;
+
+        private String sourceAddress;
+
+        private String destinationAddress;
+
+        private byte[] shortMessage;
+
+        /**
+         * Constructor.
+         * @param pduTemplate The PDU template
+         * @param sourceAddress The source address
+         * @param destinationAddress The destination address
+         * @param shortMessage The pre-encoded short message
+         */
+        RawSubmission(
+            final SmppPduTemplate pduTemplate,
+            final String sourceAddress,
+            final String destinationAddress,
+            final byte[] shortMessage) {
+
+            super();
+
+            this.pduTemplate = pduTemplate;
+            this.sourceAddress = sourceAddress;
+            this.destinationAddress = destinationAddress;
+            this.shortMessage = shortMessage;
+        }
+
+        /**
+         * Get destination address.
+         * @return The destination address
+         */
+        String getDestinationAddress() {
+            return destinationAddress;
+        }
+
+        /**
+         * Check whether the submission is bulk traffic.
+         * @return true if the submission is bulk traffic, false otherwise
+         */
+        boolean isBulk() {
+            return pduTemplate.getPriorityFlag() == SmppPriority.BULK.getPriorityFlag();
+        }
+
+        /**
+         * Get coalescing key.
+         * @return The coalescing key
+         */
+        Object getKey() {
+            return Arrays.asList(destinationAddress, sourceAddress, pduTemplate, ByteBuffer.wrap(shortMessage));
+        }
+
+        /**
+         * Get number of parts.
+         * @return The number of parts
+         */
+        int getPartCount() {
+            return 1;
+        }
+
+        /**
+         * Send part.
+         * @param connection The SMPP connection
+         * @param part The index of the part, starting at 0
+         * @return The response
+         * @throws Exception if unable to send the part
+         */
+        SubmitSmResult send(
+            final ClientSession connection,
+            final int part) throws Exception {
+
+            long startTime;
+
+            startTime = System.nanoTime();
+
+            try {
+
+                return connection.submitShortMessage(pduTemplate.getServiceType(),
+                    getSourceTon(), getSourceNpi(), sourceAddress,
+                    getDestinationTon(), getDestinationNpi(), destinationAddress,
+                    pduTemplate.getEsmClass(), pduTemplate.getProtocolId(), pduTemplate.getPriorityFlag(),
+                    null, null, pduTemplate.getRegisteredDelivery(), (byte) 0, pduTemplate.getDataCoding(),
+                    (byte) 0, shortMessage, pduTemplate.getOptionalParameters());
+            }
+            finally {
+
+                metrics.recordSubmit(System.nanoTime() - startTime);
+            }
+
+        }
+
+        /**
+         * Returns a string representation of the submission.
+         * @return The string representation
+         */
+        public String toString() {
+            return "{\"sourceAddress\": \"" + sourceAddress + "\", \"destinationAddress\": \"" + destinationAddress
+                + "\", \"length\": " + shortMessage.length + "}";
+        }
+
     }
 
 }
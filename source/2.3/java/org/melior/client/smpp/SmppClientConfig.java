@@ -13,6 +13,7 @@ import org.jsmpp.bean.NumberingPlanIndicator;
 import org.jsmpp.bean.TypeOfNumber;
 import org.melior.client.core.ClientConfig;
 import org.melior.util.exception.ExceptionUtil;
+import org.melior.util.number.Clamp;
 
 /**
  * Configuration parameters for a {@code SmppClient}, with defaults.
@@ -39,6 +40,32 @@ public class SmppClientConfig extends ClientConfig {
 
     private int connections = 1;
 
+    private int receiverConnections = 0;
+
+    private int traceSampleRate = 0;
+
+    private boolean virtualThreads = false;
+
+    private int adaptiveTimeoutFactor = 0;
+
+    private int minimumRequestTimeout = 1000;
+
+    private int maximumTimeouts = 3;
+
+    private int retries = 0;
+
+    private boolean ambiguousRetries = false;
+
+    private int reservedConnections = 0;
+
+    private int maximumPayloadLength = 0;
+
+    private boolean pinnedDestinations = false;
+
+    private int coalesceWindow = 0;
+
+    private int generation = 0;
+
     /**
      * Constructor.
      */
@@ -66,6 +93,19 @@ public class SmppClientConfig extends ClientConfig {
         this.alphabet = clientConfig.alphabet;
         this.messageClass = clientConfig.messageClass;
         this.connections = clientConfig.connections;
+        this.receiverConnections = clientConfig.receiverConnections;
+        this.traceSampleRate = clientConfig.traceSampleRate;
+        this.virtualThreads = clientConfig.virtualThreads;
+        this.adaptiveTimeoutFactor = clientConfig.adaptiveTimeoutFactor;
+        this.minimumRequestTimeout = clientConfig.minimumRequestTimeout;
+        this.maximumTimeouts = clientConfig.maximumTimeouts;
+        this.retries = clientConfig.retries;
+        this.ambiguousRetries = clientConfig.ambiguousRetries;
+        this.reservedConnections = clientConfig.reservedConnections;
+        this.maximumPayloadLength = clientConfig.maximumPayloadLength;
+        this.pinnedDestinations = clientConfig.pinnedDestinations;
+        this.coalesceWindow = clientConfig.coalesceWindow;
+        this.generation = clientConfig.generation;
 
         return this;
     }
@@ -226,4 +266,273 @@ public class SmppClientConfig extends ClientConfig {
         setInactivityTimeout(0);
     }
 
+    /**
+     * Get number of receiver connections.
+     * @return The number of receiver connections
+     */
+    public int getReceiverConnections() {
+        return receiverConnections;
+    }
+
+    /**
+     * Set number of receiver connections.  When set, the client binds a dedicated
+     * pool of this many receiver sessions for messages and receipts, and binds its
+     * regular pool of connections as transmitters, regardless of the configured
+     * bind type, so that submit latency does not depend on the receive volume.  A
+     * value of 0 binds a single pool with the configured bind type.
+     * @param receiverConnections The number of receiver connections
+     */
+    public void setReceiverConnections(
+        final int receiverConnections) {
+        this.receiverConnections = Clamp.clampInt(receiverConnections, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get trace sample rate.
+     * @return The trace sample rate
+     */
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * Set trace sample rate.  When set to N, then 1 in N messages is written to
+     * the logs in full at info level, regardless of whether debug logging is
+     * enabled.  A value of 0 disables sampled tracing.
+     * @param traceSampleRate The trace sample rate
+     */
+    public void setTraceSampleRate(
+        final int traceSampleRate) {
+        this.traceSampleRate = Clamp.clampInt(traceSampleRate, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether asynchronous sends run on virtual threads.
+     * @return true if asynchronous sends run on virtual threads, false otherwise
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Set whether asynchronous sends run on virtual threads.  If the runtime does
+     * not support virtual threads, then asynchronous sends run on a pool of
+     * platform threads, sized to the number of connections.
+     * @param virtualThreads true if asynchronous sends should run on virtual threads, false otherwise
+     */
+    public void setVirtualThreads(
+        final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Get adaptive timeout factor.
+     * @return The adaptive timeout factor
+     */
+    public int getAdaptiveTimeoutFactor() {
+        return adaptiveTimeoutFactor;
+    }
+
+    /**
+     * Set adaptive timeout factor.  When set to N, then the transaction timer of
+     * each session is periodically set to N times the 99th percentile of its submit
+     * round trip time, bounded by the minimum request timeout and the request timeout.
+     * A value of 0 keeps the transaction timer at the request timeout.
+     * @param adaptiveTimeoutFactor The adaptive timeout factor
+     */
+    public void setAdaptiveTimeoutFactor(
+        final int adaptiveTimeoutFactor) {
+        this.adaptiveTimeoutFactor = Clamp.clampInt(adaptiveTimeoutFactor, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get minimum request timeout.
+     * @return The minimum request timeout
+     */
+    public int getMinimumRequestTimeout() {
+        return minimumRequestTimeout;
+    }
+
+    /**
+     * Set minimum request timeout.  This is the lower bound of the adaptive
+     * transaction timer, in milliseconds.
+     * @param minimumRequestTimeout The minimum request timeout
+     */
+    public void setMinimumRequestTimeout(
+        final int minimumRequestTimeout) {
+        this.minimumRequestTimeout = Clamp.clampInt(minimumRequestTimeout, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get maximum number of consecutive timeouts.
+     * @return The maximum number of consecutive timeouts
+     */
+    public int getMaximumTimeouts() {
+        return maximumTimeouts;
+    }
+
+    /**
+     * Set maximum number of consecutive timeouts.  A session on which this many
+     * consecutive requests have timed out is considered dead, and is evicted.
+     * @param maximumTimeouts The maximum number of consecutive timeouts
+     */
+    public void setMaximumTimeouts(
+        final int maximumTimeouts) {
+        this.maximumTimeouts = Clamp.clampInt(maximumTimeouts, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get number of retries.
+     * @return The number of retries
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Set number of retries.  A message segment which the SMSC did not accept due to
+     * a transient error, such as throttling, a full message queue or a system error,
+     * is retried up to this many times after the backoff period, on a connection
+     * which is borrowed from the pool again, and which may be the same session.
+     * Segments which were already accepted are not sent again.
+     * Timeouts and communication failures are only retried if ambiguous retries are
+     * enabled.  A value of 0 disables retries.
+     * @param retries The number of retries
+     */
+    public void setRetries(
+        final int retries) {
+        this.retries = Clamp.clampInt(retries, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether ambiguous failures are retried.
+     * @return true if ambiguous failures are retried, false otherwise
+     */
+    public boolean isAmbiguousRetries() {
+        return ambiguousRetries;
+    }
+
+    /**
+     * Set whether ambiguous failures are retried.  When a segment times out or the
+     * connection fails while it is being sent, then the SMSC may already have
+     * accepted it, so retrying it may deliver the message twice.  Such failures are
+     * only retried when this is set.
+     * @param ambiguousRetries true if ambiguous failures should be retried, false otherwise
+     */
+    public void setAmbiguousRetries(
+        final boolean ambiguousRetries) {
+        this.ambiguousRetries = ambiguousRetries;
+    }
+
+    /**
+     * Get number of reserved connections.
+     * @return The number of reserved connections
+     */
+    public int getReservedConnections() {
+        return reservedConnections;
+    }
+
+    /**
+     * Set number of reserved connections.  Bulk messages may only occupy the number
+     * of connections less the reserved connections at any time, so that normal and
+     * high priority messages always find a connection that is not busy with bulk
+     * traffic.  At least one connection always remains available to bulk messages.
+     * @param reservedConnections The number of reserved connections
+     */
+    public void setReservedConnections(
+        final int reservedConnections) {
+        this.reservedConnections = Clamp.clampInt(reservedConnections, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get maximum length of messages which are sent in the message payload.
+     * @return The maximum length of messages which are sent in the message payload
+     */
+    public int getMaximumPayloadLength() {
+        return maximumPayloadLength;
+    }
+
+    /**
+     * Set maximum length of messages which are sent in the message payload.  Long
+     * messages up to this length are sent as a single submit, with the text in the
+     * {@code message_payload} TLV instead of being segmented, so that they take one
+     * request and yield one message identifier.  Longer messages are segmented.  If
+     * the SMSC rejects the message payload with a command status which is specific
+     * to the message length or to TLVs, then the message is segmented instead,
+     * and all further long messages are segmented until the configuration changes.
+     * A value of 0 disables the message payload.
+     * @param maximumPayloadLength The maximum length of messages which are sent in the message payload
+     */
+    public void setMaximumPayloadLength(
+        final int maximumPayloadLength) {
+        this.maximumPayloadLength = Clamp.clampInt(maximumPayloadLength, 0, 65535);
+    }
+
+    /**
+     * Check whether destinations are pinned.
+     * @return true if destinations are pinned, false otherwise
+     */
+    public boolean isPinnedDestinations() {
+        return pinnedDestinations;
+    }
+
+    /**
+     * Set whether destinations are pinned.  When set, then each destination address
+     * is pinned to one of as many stripes as there are connections, by consistent
+     * hashing, and messages to the same destination are submitted one at a time, in
+     * the order in which they were sent, including messages which are sent
+     * asynchronously.  Messages to destinations on other stripes are not held up.
+     * @param pinnedDestinations true if destinations should be pinned, false otherwise
+     */
+    public void setPinnedDestinations(
+        final boolean pinnedDestinations) {
+        this.pinnedDestinations = pinnedDestinations;
+    }
+
+    /**
+     * Get coalescing window.
+     * @return The coalescing window in milliseconds
+     */
+    public int getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    /**
+     * Set coalescing window.  Identical messages to the same destination which are
+     * sent within this window of the first one are not submitted again, and yield
+     * the message identifier of the first one.  A value of 0 disables coalescing.
+     * @param coalesceWindow The coalescing window in milliseconds
+     */
+    public void setCoalesceWindow(
+        final int coalesceWindow) {
+        this.coalesceWindow = Clamp.clampInt(coalesceWindow, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get generation of the connection settings.
+     * @return The generation
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Set generation of the connection settings.
+     * @param generation The generation
+     */
+    void setGeneration(
+        final int generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Get key of the settings which apply when a connection is bound.  Connections
+     * must be bound again for changes to these settings to take effect.
+     * @return The key
+     */
+    String getBindKey() {
+        return getUrl() + "|" + getUsername() + "|" + getPassword() + "|" + systemType + "|" +
+            sourceTon + "|" + sourceNpi + "|" + addressRange + "|" + getConnectionTimeout() + "|" + getRequestTimeout();
+    }
+
 }
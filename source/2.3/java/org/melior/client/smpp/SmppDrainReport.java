@@ -0,0 +1,117 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+
+/**
+ * Reports what was left over when an {@code SmppClient} or an {@code SmppListener}
+ * was drained.  The drain is complete when nothing was left over.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppDrainReport {
+
+    private long sends;
+
+    private long requests;
+
+    private long scheduled;
+
+    private long processing;
+
+    /**
+     * Constructor.
+     * @param sends The number of sends which were still in progress
+     * @param requests The number of requests which were still unacknowledged
+     * @param scheduled The number of scheduled sends which were cancelled
+     * @param processing The number of messages and receipts which were still being processed
+     */
+    SmppDrainReport(
+        final long sends,
+        final long requests,
+        final long scheduled,
+        final long processing) {
+
+        super();
+
+        this.sends = sends;
+        this.requests = requests;
+        this.scheduled = scheduled;
+        this.processing = processing;
+    }
+
+    /**
+     * Get instance of drain report.
+     * @param sends The number of sends which were still in progress
+     * @param requests The number of requests which were still unacknowledged
+     * @param scheduled The number of scheduled sends which were cancelled
+     * @param processing The number of messages and receipts which were still being processed
+     * @return The drain report
+     */
+    public static SmppDrainReport of(
+        final long sends,
+        final long requests,
+        final long scheduled,
+        final long processing) {
+        return new SmppDrainReport(sends, requests, scheduled, processing);
+    }
+
+    /**
+     * Get number of sends which were still in progress.
+     * @return The number of sends
+     */
+    public long getSends() {
+        return sends;
+    }
+
+    /**
+     * Get number of requests which were still unacknowledged.
+     * @return The number of requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get number of scheduled sends which were cancelled.
+     * @return The number of scheduled sends
+     */
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    /**
+     * Get number of messages and receipts which were still being processed.
+     * @return The number of messages and receipts
+     */
+    public long getProcessing() {
+        return processing;
+    }
+
+    /**
+     * Check whether the drain is complete.
+     * @return true if nothing was left over, false otherwise
+     */
+    public boolean isComplete() {
+        return (sends == 0) && (requests == 0) && (scheduled == 0) && (processing == 0);
+    }
+
+    /**
+     * Returns a string representation of the drain report.
+     * @return The string representation
+     */
+    public String toString() {
+        return "{" +
+            "\"sends\": " + sends + ", " +
+            "\"requests\": " + requests + ", " +
+            "\"scheduled\": " + scheduled + ", " +
+            "\"processing\": " + processing +
+            "}";
+    }
+
+}
@@ -0,0 +1,133 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors on which the SMPP client and listener run their work.
+ * <p>
+ * When virtual threads are requested and the runtime supports them, then every
+ * task runs on its own virtual thread, so that blocking work costs no platform
+ * threads.  Otherwise a fixed pool of daemon platform threads is used.  The
+ * virtual thread executor is looked up reflectively, so that the harness still
+ * runs on runtimes which predate virtual threads.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppExecutors {
+
+    private static final Method virtualExecutor = findVirtualExecutor();
+
+    /**
+     * Constructor.
+     */
+    private SmppExecutors() {
+
+        super();
+    }
+
+    /**
+     * Check whether the runtime supports virtual threads.
+     * @return true if the runtime supports virtual threads, false otherwise
+     */
+    public static boolean isVirtualThreadSupported() {
+        return virtualExecutor != null;
+    }
+
+    /**
+     * Create executor.
+     * @param name The thread name prefix
+     * @param virtualThreads true if virtual threads should be used when supported, false otherwise
+     * @param threads The number of platform threads, when virtual threads are not used
+     * @return The executor
+     */
+    public static ExecutorService newExecutor(
+        final String name,
+        final boolean virtualThreads,
+        final int threads) {
+
+        AtomicInteger threadNumber;
+        ThreadPoolExecutor executor;
+
+        if ((virtualThreads == true) && (virtualExecutor != null)) {
+
+            try {
+
+                return (ExecutorService) virtualExecutor.invoke(null);
+            }
+            catch (Exception exception) {
+            }
+
+        }
+
+        threadNumber = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * Resize executor.  Only pools of platform threads are resized, since virtual
+     * threads are not pooled.
+     * @param executor The executor
+     * @param threads The number of threads
+     */
+    public static void resize(
+        final ExecutorService executor,
+        final int threads) {
+
+        ThreadPoolExecutor pool;
+
+        if ((executor instanceof ThreadPoolExecutor) == false) {
+            return;
+        }
+
+        pool = (ThreadPoolExecutor) executor;
+
+        if (threads > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        }
+        else {
+            pool.setCorePoolSize(threads);
+            pool.setMaximumPoolSize(threads);
+        }
+
+    }
+
+    /**
+     * Find virtual thread executor factory method.
+     * @return The factory method, or null if the runtime does not support virtual threads
+     */
+    private static Method findVirtualExecutor() {
+
+        try {
+
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (Exception exception) {
+            return null;
+        }
+
+    }
+
+}
@@ -7,6 +7,8 @@
         Service Harness
 */
 package org.melior.client.smpp;
+import java.time.Duration;
+import java.time.Instant;
 
 /**
  * An SMPP message.
@@ -23,6 +25,14 @@ public class SmppMessage {
 
     private String messageId;
 
+    private SmppPriority priority;
+
+    private Instant scheduleDeliveryTime;
+
+    private Duration validityPeriod;
+
+    private SmppTlvs tlvs;
+
     /**
      * Constructor.
      * @param sourceAddress The source address
@@ -42,6 +52,28 @@ public class SmppMessage {
         this.destinationAddress = destinationAddress;
         this.messageText = messageText;
         this.messageId = messageId;
+
+        priority = SmppPriority.NORMAL;
+        tlvs = SmppTlvs.empty();
+    }
+
+    /**
+     * Constructor.
+     * @param message The SMPP message to copy
+     */
+    private SmppMessage(
+        final SmppMessage message) {
+
+        super();
+
+        this.sourceAddress = message.sourceAddress;
+        this.destinationAddress = message.destinationAddress;
+        this.messageText = message.messageText;
+        this.messageId = message.messageId;
+        this.priority = message.priority;
+        this.scheduleDeliveryTime = message.scheduleDeliveryTime;
+        this.validityPeriod = message.validityPeriod;
+        this.tlvs = message.tlvs;
     }
 
     /**
@@ -60,6 +92,30 @@ public class SmppMessage {
         return new SmppMessage(sourceAddress, destinationAddress, messageText, messageId);
     }
 
+    /**
+     * Get instance of SMPP message.
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @param messageText The message text
+     * @param messageId The message identifier
+     * @param tlvs The TLVs of the received message
+     * @return The SMPP message
+     */
+    public static SmppMessage of(
+        final String sourceAddress,
+        final String destinationAddress,
+        final String messageText,
+        final String messageId,
+        final SmppTlvs tlvs) {
+
+        SmppMessage message;
+
+        message = new SmppMessage(sourceAddress, destinationAddress, messageText, messageId);
+        message.tlvs = (tlvs == null) ? SmppTlvs.empty() : tlvs;
+
+        return message;
+    }
+
     /**
      * Get instance of SMPP message.
      * @param sourceAddress The source address
@@ -106,6 +162,89 @@ public class SmppMessage {
         return messageId;
     }
 
+    /**
+     * Get TLVs of the received message.  The TLVs are only decoded when they are
+     * requested.
+     * @return The TLVs, which are empty for messages that have not been received
+     */
+    public SmppTlvs getTlvs() {
+        return tlvs;
+    }
+
+    /**
+     * Get priority class.
+     * @return The priority class
+     */
+    public SmppPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get copy of the SMPP message with a different priority class.
+     * @param priority The priority class
+     * @return The SMPP message
+     */
+    public SmppMessage withPriority(
+        final SmppPriority priority) {
+
+        SmppMessage message;
+
+        message = new SmppMessage(this);
+        message.priority = (priority == null) ? SmppPriority.NORMAL : priority;
+
+        return message;
+    }
+
+    /**
+     * Get scheduled delivery time.
+     * @return The scheduled delivery time, or null if the message must be delivered immediately
+     */
+    public Instant getScheduleDeliveryTime() {
+        return scheduleDeliveryTime;
+    }
+
+    /**
+     * Get copy of the SMPP message with a scheduled delivery time.  The SMSC holds
+     * the message until the scheduled delivery time.
+     * @param scheduleDeliveryTime The scheduled delivery time
+     * @return The SMPP message
+     */
+    public SmppMessage withScheduleDeliveryTime(
+        final Instant scheduleDeliveryTime) {
+
+        SmppMessage message;
+
+        message = new SmppMessage(this);
+        message.scheduleDeliveryTime = scheduleDeliveryTime;
+
+        return message;
+    }
+
+    /**
+     * Get validity period.
+     * @return The validity period, or null if the SMSC default applies
+     */
+    public Duration getValidityPeriod() {
+        return validityPeriod;
+    }
+
+    /**
+     * Get copy of the SMPP message with a validity period.  The SMSC discards the
+     * message if it cannot be delivered within the validity period.
+     * @param validityPeriod The validity period
+     * @return The SMPP message
+     */
+    public SmppMessage withValidityPeriod(
+        final Duration validityPeriod) {
+
+        SmppMessage message;
+
+        message = new SmppMessage(this);
+        message.validityPeriod = validityPeriod;
+
+        return message;
+    }
+
     /**
      * Returns a string representation of the SMPP message.
      * @return The string representation
@@ -115,7 +254,10 @@ public class SmppMessage {
             quoted("sourceAddress") + ": " + quoted(sourceAddress) + ", " +
             quoted("destinationAddress") + ": " + quoted(destinationAddress) + ", " +
             quoted("messageText") + ": " + quoted(messageText) + ", " +
-            quoted("messageId") + ": " + quoted(messageId) +
+            quoted("messageId") + ": " + quoted(messageId) + ", " +
+            quoted("priority") + ": " + quoted(priority.name()) + ", " +
+            quoted("scheduleDeliveryTime") + ": " + quoted(SmppTime.absolute(scheduleDeliveryTime)) + ", " +
+            quoted("validityPeriod") + ": " + quoted(SmppTime.relative(validityPeriod)) +
             "}";
     }
 
@@ -0,0 +1,346 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jsmpp.SMPPConstant;
+
+/**
+ * Collects the metrics of an {@code SmppClient} or an {@code SmppListener}.
+ * <p>
+ * All recording methods are lock-free and allocation-free, so that they may be
+ * called on the send and receive hot paths.  The metrics of every client and
+ * listener are kept in a static registry until it is drained, and the registry
+ * may be scraped as a flat map of metric names and values, for example to bind
+ * the metrics to the metrics registry of the Spring Boot application.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppMetrics {
+
+    private static final Map<String, SmppMetrics> registry = new ConcurrentHashMap<String, SmppMetrics>();
+
+    private String name;
+
+    private LatencyHistogram submitLatency;
+
+    private LatencyHistogram enquireLinkLatency;
+
+    private LatencyHistogram processingLatency;
+
+    private LongAdder throttled;
+
+    private LongAdder nacks;
+
+    private Map<Integer, LongAdder> commandStatuses;
+
+    private Set<SessionMonitor> sessions;
+
+    private Map<String, Supplier<Number>> gauges;
+
+    /**
+     * Constructor.
+     * @param name The metrics name
+     */
+    private SmppMetrics(
+        final String name) {
+
+        super();
+
+        this.name = name;
+
+        submitLatency = new LatencyHistogram();
+        enquireLinkLatency = new LatencyHistogram();
+        processingLatency = new LatencyHistogram();
+        throttled = new LongAdder();
+        nacks = new LongAdder();
+        commandStatuses = new ConcurrentHashMap<Integer, LongAdder>();
+        sessions = ConcurrentHashMap.newKeySet();
+        gauges = new ConcurrentHashMap<String, Supplier<Number>>();
+    }
+
+    /**
+     * Create and register instance of SMPP metrics for a single client or listener.
+     * If the name is already taken, then a numeric suffix is added to the name, so
+     * that the sessions and gauges of different clients and listeners are never
+     * shared, even when they have no name or the same name.
+     * @param name The metrics name
+     * @return The SMPP metrics
+     */
+    public static SmppMetrics create(
+        final String name) {
+
+        SmppMetrics metrics;
+        String key;
+
+        key = name;
+
+        for (int i = 2; ; i++) {
+            metrics = new SmppMetrics(key);
+
+            if (registry.putIfAbsent(key, metrics) == null) {
+                return metrics;
+            }
+
+            key = name + "-" + i;
+        }
+
+    }
+
+    /**
+     * Get all registered SMPP metrics.
+     * @return The SMPP metrics, keyed by name
+     */
+    public static Map<String, SmppMetrics> getRegistry() {
+        return Collections.unmodifiableMap(registry);
+    }
+
+    /**
+     * Scrape all registered SMPP metrics.
+     * @return The metric values, keyed by metric name
+     */
+    public static Map<String, Number> scrape() {
+
+        Map<String, Number> values;
+
+        values = new TreeMap<String, Number>();
+
+        for (SmppMetrics metrics : registry.values()) {
+            values.putAll(metrics.snapshot());
+        }
+
+        return values;
+    }
+
+    /**
+     * Remove metrics from the registry, once the client or listener has been drained,
+     * so that the registry does not hold on to the metrics and sessions of clients
+     * and listeners which are no longer used.  The name may then be taken again.
+     */
+    public void close() {
+
+        registry.remove(name, this);
+
+        sessions.clear();
+    }
+
+    /**
+     * Get metrics name.
+     * @return The metrics name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record submit latency.
+     * @param nanos The latency in nanoseconds
+     */
+    public void recordSubmit(
+        final long nanos) {
+        submitLatency.record(nanos);
+    }
+
+    /**
+     * Record enquire link round trip time.
+     * @param nanos The round trip time in nanoseconds
+     */
+    public void recordEnquireLink(
+        final long nanos) {
+        enquireLinkLatency.record(nanos);
+    }
+
+    /**
+     * Record listener processing latency.
+     * @param nanos The latency in nanoseconds
+     */
+    public void recordProcessing(
+        final long nanos) {
+        processingLatency.record(nanos);
+    }
+
+    /**
+     * Record response command status.  Only failed responses are counted.
+     * @param commandId The command identifier
+     * @param commandStatus The command status
+     */
+    public void recordResponse(
+        final int commandId,
+        final int commandStatus) {
+
+        if (commandId == SMPPConstant.CID_GENERIC_NACK) {
+            nacks.increment();
+        }
+
+        if (commandStatus == SMPPConstant.STAT_ESME_ROK) {
+            return;
+        }
+
+        if (commandStatus == SMPPConstant.STAT_ESME_RTHROTTLED) {
+            throttled.increment();
+        }
+
+        commandStatuses.computeIfAbsent(commandStatus, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Get submit latency histogram.
+     * @return The submit latency histogram
+     */
+    public LatencyHistogram getSubmitLatency() {
+        return submitLatency;
+    }
+
+    /**
+     * Get enquire link round trip time histogram.
+     * @return The enquire link round trip time histogram
+     */
+    public LatencyHistogram getEnquireLinkLatency() {
+        return enquireLinkLatency;
+    }
+
+    /**
+     * Get listener processing latency histogram.
+     * @return The listener processing latency histogram
+     */
+    public LatencyHistogram getProcessingLatency() {
+        return processingLatency;
+    }
+
+    /**
+     * Get number of throttled responses.
+     * @return The number of throttled responses
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * Get number of generic NACKs.
+     * @return The number of generic NACKs
+     */
+    public long getNacks() {
+        return nacks.sum();
+    }
+
+    /**
+     * Get number of failed responses by command status.
+     * @return The number of failed responses, keyed by command status
+     */
+    public Map<Integer, Long> getCommandStatuses() {
+
+        Map<Integer, Long> values;
+
+        values = new TreeMap<Integer, Long>();
+
+        for (Map.Entry<Integer, LongAdder> entry : commandStatuses.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return values;
+    }
+
+    /**
+     * Register gauge.  The gauge is only read when a snapshot of the metrics is taken.
+     * @param metric The metric name, relative to the metrics name
+     * @param gauge The supplier of the gauge value
+     */
+    public void gauge(
+        final String metric,
+        final Supplier<Number> gauge) {
+        gauges.put(metric, gauge);
+    }
+
+    /**
+     * Register session.
+     * @param session The session monitor
+     */
+    void register(
+        final SessionMonitor session) {
+        sessions.add(session);
+    }
+
+    /**
+     * Deregister session.
+     * @param session The session monitor
+     */
+    void deregister(
+        final SessionMonitor session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Get sessions.
+     * @return The session monitors
+     */
+    Set<SessionMonitor> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Take snapshot of metrics.
+     * @return The metric values, keyed by metric name
+     */
+    public Map<String, Number> snapshot() {
+
+        Map<String, Number> values;
+
+        values = new TreeMap<String, Number>();
+
+        snapshot(values, "submit.latency", submitLatency);
+        snapshot(values, "enquirelink.latency", enquireLinkLatency);
+        snapshot(values, "processing.latency", processingLatency);
+
+        values.put(name + ".throttled", getThrottled());
+        values.put(name + ".nacks", getNacks());
+
+        for (Map.Entry<Integer, Long> entry : getCommandStatuses().entrySet()) {
+            values.put(name + ".status." + String.format("0x%08x", entry.getKey()), entry.getValue());
+        }
+
+        for (SessionMonitor session : sessions) {
+            values.put(name + ".session." + session.getId() + ".window", session.getWindow());
+        }
+
+        for (Map.Entry<String, Supplier<Number>> entry : gauges.entrySet()) {
+            values.put(name + "." + entry.getKey(), entry.getValue().get());
+        }
+
+        return values;
+    }
+
+    /**
+     * Take snapshot of latency histogram.
+     * @param values The metric values
+     * @param metric The metric name
+     * @param histogram The latency histogram
+     */
+    private void snapshot(
+        final Map<String, Number> values,
+        final String metric,
+        final LatencyHistogram histogram) {
+
+        String prefix;
+
+        prefix = name + "." + metric;
+
+        values.put(prefix + ".count", histogram.getCount());
+        values.put(prefix + ".mean", histogram.getMean(TimeUnit.MILLISECONDS));
+        values.put(prefix + ".p50", histogram.getPercentile(50, TimeUnit.MILLISECONDS));
+        values.put(prefix + ".p99", histogram.getPercentile(99, TimeUnit.MILLISECONDS));
+        values.put(prefix + ".p999", histogram.getPercentile(99.9, TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,126 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import org.jsmpp.bean.DataCoding;
+import org.jsmpp.bean.DataCodings;
+import org.jsmpp.bean.ESMClass;
+import org.jsmpp.bean.OptionalParameter;
+import org.jsmpp.bean.RegisteredDelivery;
+
+/**
+ * A pre-built template of the fields of a submit, other than the addresses and the
+ * short message.  A template is built once and may be used for any number of raw
+ * sends, from any number of threads, without allocating the fields again.
+ * @author Melior
+ * @since 2.3
+ * @see SmppPduTemplateBuilder
+ */
+public class SmppPduTemplate {
+
+    private String serviceType;
+
+    private ESMClass esmClass;
+
+    private byte protocolId;
+
+    private byte priorityFlag;
+
+    private RegisteredDelivery registeredDelivery;
+
+    private DataCoding dataCoding;
+
+    private OptionalParameter[] optionalParameters;
+
+    /**
+     * Constructor.
+     * @param serviceType The service type
+     * @param esmClass The ESM class
+     * @param protocolId The protocol identifier
+     * @param priorityFlag The priority flag
+     * @param registeredDelivery The registered delivery
+     * @param dataCoding The data coding
+     * @param optionalParameters The optional parameters
+     */
+    SmppPduTemplate(
+        final String serviceType,
+        final byte esmClass,
+        final byte protocolId,
+        final byte priorityFlag,
+        final byte registeredDelivery,
+        final byte dataCoding,
+        final OptionalParameter[] optionalParameters) {
+
+        super();
+
+        this.serviceType = serviceType;
+        this.esmClass = new ESMClass(esmClass);
+        this.protocolId = protocolId;
+        this.priorityFlag = priorityFlag;
+        this.registeredDelivery = new RegisteredDelivery(registeredDelivery);
+        this.dataCoding = DataCodings.newInstance(dataCoding);
+        this.optionalParameters = optionalParameters;
+    }
+
+    /**
+     * Get service type.
+     * @return The service type
+     */
+    String getServiceType() {
+        return serviceType;
+    }
+
+    /**
+     * Get ESM class.
+     * @return The ESM class
+     */
+    ESMClass getEsmClass() {
+        return esmClass;
+    }
+
+    /**
+     * Get protocol identifier.
+     * @return The protocol identifier
+     */
+    byte getProtocolId() {
+        return protocolId;
+    }
+
+    /**
+     * Get priority flag.
+     * @return The priority flag
+     */
+    byte getPriorityFlag() {
+        return priorityFlag;
+    }
+
+    /**
+     * Get registered delivery.
+     * @return The registered delivery
+     */
+    RegisteredDelivery getRegisteredDelivery() {
+        return registeredDelivery;
+    }
+
+    /**
+     * Get data coding.
+     * @return The data coding
+     */
+    DataCoding getDataCoding() {
+        return dataCoding;
+    }
+
+    /**
+     * Get optional parameters.
+     * @return The optional parameters
+     */
+    OptionalParameter[] getOptionalParameters() {
+        return optionalParameters;
+    }
+
+}
@@ -0,0 +1,160 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.ArrayList;
+import java.util.List;
+import org.jsmpp.bean.OptionalParameter;
+
+/**
+ * Convenience class for building an {@code SmppPduTemplate}.  All fields default
+ * to zero, so that the template describes a plain submit with the default alphabet
+ * and without a receipt.
+ * @author Melior
+ * @since 2.3
+ * @see SmppPduTemplate
+ */
+public class SmppPduTemplateBuilder {
+
+    private String serviceType = "";
+
+    private byte esmClass = 0;
+
+    private byte protocolId = 0;
+
+    private byte priorityFlag = 0;
+
+    private byte registeredDelivery = 0;
+
+    private byte dataCoding = 0;
+
+    private List<OptionalParameter> optionalParameters;
+
+    /**
+     * Constructor.
+     */
+    private SmppPduTemplateBuilder() {
+
+        super();
+
+        optionalParameters = new ArrayList<OptionalParameter>();
+    }
+
+    /**
+     * Create PDU template builder.
+     * @return The PDU template builder
+     */
+    public static SmppPduTemplateBuilder create() {
+
+        return new SmppPduTemplateBuilder();
+    }
+
+    /**
+     * Build PDU template.
+     * @return The PDU template
+     */
+    public SmppPduTemplate build() {
+
+        return new SmppPduTemplate(serviceType, esmClass, protocolId, priorityFlag, registeredDelivery,
+            dataCoding, optionalParameters.toArray(new OptionalParameter[optionalParameters.size()]));
+    }
+
+    /**
+     * Set service type.
+     * @param serviceType The service type
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder serviceType(
+        final String serviceType) {
+
+        this.serviceType = (serviceType == null) ? "" : serviceType;
+
+        return this;
+    }
+
+    /**
+     * Set ESM class.
+     * @param esmClass The raw ESM class
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder esmClass(
+        final byte esmClass) {
+
+        this.esmClass = esmClass;
+
+        return this;
+    }
+
+    /**
+     * Set protocol identifier.
+     * @param protocolId The raw protocol identifier
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder protocolId(
+        final byte protocolId) {
+
+        this.protocolId = protocolId;
+
+        return this;
+    }
+
+    /**
+     * Set priority flag.
+     * @param priorityFlag The raw priority flag
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder priorityFlag(
+        final byte priorityFlag) {
+
+        this.priorityFlag = priorityFlag;
+
+        return this;
+    }
+
+    /**
+     * Set registered delivery.
+     * @param registeredDelivery The raw registered delivery
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder registeredDelivery(
+        final byte registeredDelivery) {
+
+        this.registeredDelivery = registeredDelivery;
+
+        return this;
+    }
+
+    /**
+     * Set data coding.
+     * @param dataCoding The raw data coding
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder dataCoding(
+        final byte dataCoding) {
+
+        this.dataCoding = dataCoding;
+
+        return this;
+    }
+
+    /**
+     * Add TLV.
+     * @param tag The tag
+     * @param value The pre-encoded value
+     * @return The PDU template builder
+     */
+    public SmppPduTemplateBuilder tlv(
+        final short tag,
+        final byte[] value) {
+
+        optionalParameters.add(new OptionalParameter.OctetString(tag, value));
+
+        return this;
+    }
+
+}
@@ -0,0 +1,55 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+
+/**
+ * The priority class of an SMPP message.  The priority class determines the
+ * {@code priority_flag} of the submit, and whether the message competes for the
+ * connections which are reserved for priority traffic.
+ * @author Melior
+ * @since 2.3
+ */
+public enum SmppPriority {
+
+    /**
+     * Bulk traffic, such as campaigns.  Bulk messages may not use the reserved
+     * connections.
+     */
+    BULK((byte) 0),
+
+    /**
+     * Normal traffic.
+     */
+    NORMAL((byte) 1),
+
+    /**
+     * Priority traffic, such as one-time PINs.
+     */
+    HIGH((byte) 2);
+
+    private byte priorityFlag;
+
+    /**
+     * Constructor.
+     * @param priorityFlag The priority flag
+     */
+    SmppPriority(
+        final byte priorityFlag) {
+        this.priorityFlag = priorityFlag;
+    }
+
+    /**
+     * Get priority flag.
+     * @return The priority flag
+     */
+    public byte getPriorityFlag() {
+        return priorityFlag;
+    }
+
+}
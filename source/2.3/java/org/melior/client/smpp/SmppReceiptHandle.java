@@ -0,0 +1,94 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.melior.client.exception.RemotingException;
+import org.melior.server.smpp.SmppReceipt;
+import org.melior.service.exception.ExceptionType;
+
+/**
+ * A handle on a sent message, which may be used to wait for the final receipt of
+ * the message.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppReceiptHandle {
+
+    private String messageId;
+
+    private CompletableFuture<SmppReceipt> receipt;
+
+    /**
+     * Constructor.
+     * @param messageId The message identifier
+     * @param receipt The future receipt
+     */
+    SmppReceiptHandle(
+        final String messageId,
+        final CompletableFuture<SmppReceipt> receipt) {
+
+        super();
+
+        this.messageId = messageId;
+        this.receipt = receipt;
+    }
+
+    /**
+     * Get message identifier.
+     * @return The message identifier
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Get future receipt.  The future completes exceptionally with a
+     * {@code TimeoutException} if the receipt does not arrive in time.
+     * @return The future receipt
+     */
+    public CompletableFuture<SmppReceipt> getReceipt() {
+        return receipt;
+    }
+
+    /**
+     * Wait for receipt.
+     * @param timeout The maximum time to wait, in milliseconds
+     * @return The receipt
+     * @throws RemotingException if the receipt does not arrive in time
+     */
+    public SmppReceipt await(
+        final long timeout) throws RemotingException {
+
+        try {
+
+            return receipt.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new RemotingException(ExceptionType.LOCAL_APPLICATION, "Interrupted while waiting for receipt.", exception);
+        }
+        catch (ExecutionException | TimeoutException exception) {
+            throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, "Receipt for message [" + messageId + "] did not arrive in time.", exception);
+        }
+
+    }
+
+    /**
+     * Returns a string representation of the receipt handle.
+     * @return The string representation
+     */
+    public String toString() {
+        return "{\"messageId\": " + ((messageId == null) ? null : '"' + messageId + '"') + "}";
+    }
+
+}
@@ -0,0 +1,122 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+
+/**
+ * The result of sending an SMPP message.  A result holds either the message
+ * identifier which the SMSC implementation assigned to the message, or the
+ * exception which caused the send to fail.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppResult {
+
+    private SmppMessage message;
+
+    private String messageId;
+
+    private Throwable exception;
+
+    /**
+     * Constructor.
+     * @param message The SMPP message
+     * @param messageId The message identifier
+     * @param exception The exception
+     */
+    SmppResult(
+        final SmppMessage message,
+        final String messageId,
+        final Throwable exception) {
+
+        super();
+
+        this.message = message;
+        this.messageId = messageId;
+        this.exception = exception;
+    }
+
+    /**
+     * Get instance of successful SMPP result.
+     * @param message The SMPP message
+     * @param messageId The message identifier
+     * @return The SMPP result
+     */
+    public static SmppResult of(
+        final SmppMessage message,
+        final String messageId) {
+        return new SmppResult(message, messageId, null);
+    }
+
+    /**
+     * Get instance of failed SMPP result.
+     * @param message The SMPP message
+     * @param exception The exception
+     * @return The SMPP result
+     */
+    public static SmppResult of(
+        final SmppMessage message,
+        final Throwable exception) {
+        return new SmppResult(message, null, exception);
+    }
+
+    /**
+     * Get SMPP message.
+     * @return The SMPP message
+     */
+    public SmppMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Get message identifier.
+     * @return The message identifier, or null if the send failed
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Get exception.
+     * @return The exception, or null if the send succeeded
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    /**
+     * Check whether the send succeeded.
+     * @return true if the send succeeded, false otherwise
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    /**
+     * Returns a string representation of the SMPP result.
+     * @return The string representation
+     */
+    public String toString() {
+        return "{" +
+            quoted("message") + ": " + message + ", " +
+            quoted("messageId") + ": " + quoted(messageId) + ", " +
+            quoted("exception") + ": " + quoted((exception == null) ? null : exception.getMessage()) +
+            "}";
+    }
+
+    /**
+     * Returns a quoted version of the string.
+     * @param string The string
+     * @return The quoted version of the string
+     */
+    private String quoted(
+        final String string) {
+        return (string == null) ? null : '"' + string + '"';
+    }
+
+}
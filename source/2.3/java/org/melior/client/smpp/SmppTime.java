@@ -0,0 +1,110 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Formats times in the SMPP time format.  Absolute times are written in UTC, as
+ * {@code YYMMDDhhmmsstnn+}, and relative times as {@code YYMMDDhhmmss000R}.
+ * @author Melior
+ * @since 2.3
+ */
+class SmppTime {
+
+    /**
+     * Constructor.
+     */
+    private SmppTime() {
+        super();
+    }
+
+    /**
+     * Format absolute time.
+     * @param time The time
+     * @return The formatted time, or null if the time is null
+     */
+    static String absolute(
+        final Instant time) {
+
+        ZonedDateTime utc;
+        char[] chars;
+
+        if (time == null) {
+            return null;
+        }
+
+        utc = time.atZone(ZoneOffset.UTC);
+
+        chars = new char[16];
+
+        put(chars, 0, utc.getYear() % 100);
+        put(chars, 2, utc.getMonthValue());
+        put(chars, 4, utc.getDayOfMonth());
+        put(chars, 6, utc.getHour());
+        put(chars, 8, utc.getMinute());
+        put(chars, 10, utc.getSecond());
+        chars[12] = (char) ('0' + (utc.getNano() / 100000000));
+        put(chars, 13, 0);
+        chars[15] = '+';
+
+        return new String(chars);
+    }
+
+    /**
+     * Format relative time.  Periods of 100 days or more are written as 99 days,
+     * 23 hours, 59 minutes and 59 seconds.
+     * @param period The period
+     * @return The formatted period, or null if the period is null
+     */
+    static String relative(
+        final Duration period) {
+
+        long seconds;
+        char[] chars;
+
+        if (period == null) {
+            return null;
+        }
+
+        seconds = Math.min(Math.max(period.getSeconds(), 0), (100L * 86400) - 1);
+
+        chars = new char[16];
+
+        put(chars, 0, 0);
+        put(chars, 2, 0);
+        put(chars, 4, (int) (seconds / 86400));
+        put(chars, 6, (int) ((seconds / 3600) % 24));
+        put(chars, 8, (int) ((seconds / 60) % 60));
+        put(chars, 10, (int) (seconds % 60));
+        chars[12] = '0';
+        put(chars, 13, 0);
+        chars[15] = 'R';
+
+        return new String(chars);
+    }
+
+    /**
+     * Put two digit number into character array.
+     * @param chars The character array
+     * @param offset The offset
+     * @param value The number
+     */
+    private static void put(
+        final char[] chars,
+        final int offset,
+        final int value) {
+
+        chars[offset] = (char) ('0' + (value / 10));
+        chars[offset + 1] = (char) ('0' + (value % 10));
+    }
+
+}
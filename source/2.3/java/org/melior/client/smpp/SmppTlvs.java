@@ -0,0 +1,262 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.nio.charset.StandardCharsets;
+import org.jsmpp.bean.OptionalParameter;
+import org.jsmpp.util.DeliveryReceiptState;
+
+/**
+ * Provides access to the optional parameters (TLVs) of a received message or
+ * receipt.  The accessor holds on to the optional parameters of the received
+ * PDU as they were read by the SMPP library, and only looks up and decodes a
+ * TLV when it is requested, so that messages and receipts whose TLVs are never
+ * inspected incur no additional cost.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppTlvs {
+
+    private static final SmppTlvs EMPTY = new SmppTlvs(null);
+
+    private static final short NETWORK_ERROR_CODE = OptionalParameter.Tag.NETWORK_ERROR_CODE.code();
+
+    private static final short RECEIPTED_MESSAGE_ID = OptionalParameter.Tag.RECEIPTED_MESSAGE_ID.code();
+
+    private static final short MESSAGE_PAYLOAD = OptionalParameter.Tag.MESSAGE_PAYLOAD.code();
+
+    private static final short USER_MESSAGE_REFERENCE = OptionalParameter.Tag.USER_MESSAGE_REFERENCE.code();
+
+    private static final short MESSAGE_STATE = OptionalParameter.Tag.MESSAGE_STATE.code();
+
+    private static final int HEADER_LENGTH = 4;
+
+    private OptionalParameter[] parameters;
+
+    /**
+     * Constructor.
+     * @param parameters The optional parameters of the received PDU
+     */
+    private SmppTlvs(
+        final OptionalParameter[] parameters) {
+
+        super();
+
+        this.parameters = parameters;
+    }
+
+    /**
+     * Get instance of TLV accessor.  The optional parameters are not copied.
+     * @param parameters The optional parameters of the received PDU
+     * @return The TLV accessor
+     */
+    public static SmppTlvs of(
+        final OptionalParameter[] parameters) {
+        return ((parameters == null) || (parameters.length == 0)) ? EMPTY : new SmppTlvs(parameters);
+    }
+
+    /**
+     * Get empty TLV accessor.
+     * @return The TLV accessor
+     */
+    public static SmppTlvs empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Check whether TLV is present.
+     * @param tag The tag of the TLV
+     * @return true if the TLV is present, false otherwise
+     */
+    public boolean contains(
+        final short tag) {
+        return find(tag) != null;
+    }
+
+    /**
+     * Get value of TLV.
+     * @param tag The tag of the TLV
+     * @return The value of the TLV, or null if the TLV is absent
+     */
+    public byte[] get(
+        final short tag) {
+        return value(find(tag));
+    }
+
+    /**
+     * Get network type of the {@code network_error_code} TLV.
+     * @return The network type, or null if the TLV is absent
+     */
+    public Integer getNetworkType() {
+
+        byte[] value;
+
+        value = get(NETWORK_ERROR_CODE);
+
+        return ((value == null) || (value.length < 3)) ? null : value[0] & 0xFF;
+    }
+
+    /**
+     * Get error code of the {@code network_error_code} TLV.
+     * @return The network error code, or null if the TLV is absent
+     */
+    public Integer getNetworkErrorCode() {
+
+        byte[] value;
+
+        value = get(NETWORK_ERROR_CODE);
+
+        return ((value == null) || (value.length < 3)) ? null : ((value[1] & 0xFF) << 8) | (value[2] & 0xFF);
+    }
+
+    /**
+     * Get {@code receipted_message_id} TLV.
+     * @return The receipted message identifier, or null if the TLV is absent
+     */
+    public String getReceiptedMessageId() {
+
+        byte[] value;
+        int length;
+
+        value = get(RECEIPTED_MESSAGE_ID);
+
+        if (value == null) {
+            return null;
+        }
+
+        length = value.length;
+
+        while ((length > 0) && (value[length - 1] == 0)) {
+            length--;
+        }
+
+        return new String(value, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Get {@code message_payload} TLV.
+     * @return The message payload, or null if the TLV is absent
+     */
+    public byte[] getMessagePayload() {
+        return get(MESSAGE_PAYLOAD);
+    }
+
+    /**
+     * Get {@code user_message_reference} TLV.
+     * @return The user message reference, or null if the TLV is absent
+     */
+    public Integer getUserMessageReference() {
+
+        byte[] value;
+
+        value = get(USER_MESSAGE_REFERENCE);
+
+        return ((value == null) || (value.length < 2)) ? null : ((value[0] & 0xFF) << 8) | (value[1] & 0xFF);
+    }
+
+    /**
+     * Get delivery state from the {@code message_state} TLV.
+     * @return The delivery state, or null if the TLV is absent or invalid
+     */
+    public DeliveryReceiptState getMessageState() {
+
+        byte[] value;
+
+        value = get(MESSAGE_STATE);
+
+        if ((value == null) || (value.length < 1)) {
+            return null;
+        }
+
+        try {
+
+            return DeliveryReceiptState.valueOf(value[0] & 0xFF);
+        }
+        catch (IllegalArgumentException exception) {
+            return null;
+        }
+
+    }
+
+    /**
+     * Find TLV.
+     * @param tag The tag of the TLV
+     * @return The TLV, or null if the TLV is absent
+     */
+    private OptionalParameter find(
+        final short tag) {
+
+        if (parameters == null) {
+            return null;
+        }
+
+        for (OptionalParameter parameter : parameters) {
+
+            if (parameter.tag == tag) {
+                return parameter;
+            }
+
+        }
+
+        return null;
+    }
+
+    /**
+     * Get value of TLV, without the tag and length.
+     * @param parameter The TLV
+     * @return The value of the TLV, or null if the TLV is absent
+     */
+    private byte[] value(
+        final OptionalParameter parameter) {
+
+        byte[] encoded;
+        byte[] value;
+
+        if (parameter == null) {
+            return null;
+        }
+
+        if (parameter instanceof OptionalParameter.OctetString) {
+            return ((OptionalParameter.OctetString) parameter).getValue();
+        }
+
+        encoded = parameter.serialize();
+
+        value = new byte[Math.max(encoded.length - HEADER_LENGTH, 0)];
+        System.arraycopy(encoded, HEADER_LENGTH, value, 0, value.length);
+
+        return value;
+    }
+
+    /**
+     * Returns a string representation of the TLVs.
+     * @return The string representation
+     */
+    public String toString() {
+
+        StringBuilder builder;
+
+        builder = new StringBuilder("[");
+
+        if (parameters != null) {
+
+            for (OptionalParameter parameter : parameters) {
+
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+
+                builder.append("0x").append(String.format("%04x", parameter.tag & 0xFFFF));
+            }
+
+        }
+
+        return builder.append("]").toString();
+    }
+
+}
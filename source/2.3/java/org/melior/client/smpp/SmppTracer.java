@@ -0,0 +1,95 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import org.melior.logging.core.Logger;
+
+/**
+ * Traces the messages and receipts of the SMPP client and listener.  Every
+ * n-th message or receipt is sampled and traced at info level, as per the
+ * trace sample rate, while all other messages and receipts are only traced
+ * when debug logging is enabled.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppTracer {
+
+    private Logger logger;
+
+    private IntSupplier sampleRate;
+
+    private AtomicLong sequence;
+
+    /**
+     * Constructor.
+     * @param logger The logger to trace to
+     * @param sampleRate The supplier of the trace sample rate, which is 0 if no messages or receipts are sampled
+     */
+    public SmppTracer(
+        final Logger logger,
+        final IntSupplier sampleRate) {
+
+        super();
+
+        this.logger = logger;
+        this.sampleRate = sampleRate;
+
+        sequence = new AtomicLong();
+    }
+
+    /**
+     * Check whether the current message or receipt has been sampled for tracing.
+     * The sample rate is read once, so that a concurrent reconfiguration cannot
+     * change it between the check and the division.
+     * @return true if the message or receipt has been sampled, false otherwise
+     */
+    public boolean isSampled() {
+
+        int rate;
+
+        rate = sampleRate.getAsInt();
+
+        return (rate > 0) && ((sequence.getAndIncrement() % rate) == 0);
+    }
+
+    /**
+     * Check whether the current message or receipt must be traced.  Callers must
+     * check this before calling {@code trace}, so that no log arguments are evaluated
+     * when the message or receipt is not traced.
+     * @param sampled The sampled indicator
+     * @return true if the message or receipt must be traced, false otherwise
+     */
+    public boolean isTraced(
+        final boolean sampled) {
+        return (sampled == true) || (logger.isDebugEnabled() == true);
+    }
+
+    /**
+     * Write trace to the logs.  Sampled messages and receipts are traced at info
+     * level, otherwise at debug level.
+     * @param methodName The method name
+     * @param sampled The sampled indicator
+     * @param args The log arguments
+     */
+    public void trace(
+        final String methodName,
+        final boolean sampled,
+        final Object... args) {
+
+        if (sampled == true) {
+            logger.info(methodName, args);
+        }
+        else {
+            logger.debug(methodName, args);
+        }
+
+    }
+
+}
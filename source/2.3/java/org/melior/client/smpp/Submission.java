@@ -0,0 +1,76 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import org.jsmpp.session.ClientSession;
+import org.jsmpp.session.SubmitSmResult;
+
+/**
+ * A message which is being submitted to the SMSC, in one or more parts.  The
+ * client submits every kind of message through the same path, which applies the
+ * bulk permits, the destination pinning, the coalescing, the retries and the
+ * tracing, while the submission decides how each part is sent.
+ * @author Melior
+ * @since 2.3
+ */
+abstract class Submission {
+
+    /**
+     * Constructor.
+     */
+    Submission() {
+
+        super();
+    }
+
+    /**
+     * Get destination address.
+     * @return The destination address
+     */
+    abstract String getDestinationAddress();
+
+    /**
+     * Check whether the submission is bulk traffic.
+     * @return true if the submission is bulk traffic, false otherwise
+     */
+    abstract boolean isBulk();
+
+    /**
+     * Get coalescing key.  Submissions with equal keys are identical.
+     * @return The coalescing key
+     */
+    abstract Object getKey();
+
+    /**
+     * Get number of parts.
+     * @return The number of parts
+     */
+    abstract int getPartCount();
+
+    /**
+     * Send part.
+     * @param connection The SMPP connection
+     * @param part The index of the part, starting at 0
+     * @return The response
+     * @throws Exception if unable to send the part
+     */
+    abstract SubmitSmResult send(
+        ClientSession connection,
+        int part) throws Exception;
+
+    /**
+     * Change how the parts are sent after the SMSC rejected a part.
+     * @param exception The exception which caused the rejection
+     * @return true if the parts must be sent again from the first part, false if the rejection stands
+     */
+    boolean fallback(
+        final Exception exception) {
+        return false;
+    }
+
+}
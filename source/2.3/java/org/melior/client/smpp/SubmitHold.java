@@ -0,0 +1,94 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.melior.client.exception.RemotingException;
+import org.melior.service.exception.ExceptionType;
+
+/**
+ * The bulk permit and the stripe lock which a submission holds while it sends its
+ * parts.  The permit is always acquired before the lock, so that a sender which
+ * waits for a permit does not hold up the other destinations on its stripe.  Both
+ * are released while the submission backs off before a retry, and acquired again
+ * afterwards.
+ * @author Melior
+ * @since 2.3
+ */
+class SubmitHold {
+
+    private ResizableSemaphore permits;
+
+    private ReentrantLock lock;
+
+    private boolean permitted;
+
+    private boolean locked;
+
+    /**
+     * Constructor.
+     * @param permits The bulk permits, or null if the submission is not bulk traffic
+     * @param lock The stripe lock, or null if destinations are not pinned
+     */
+    SubmitHold(
+        final ResizableSemaphore permits,
+        final ReentrantLock lock) {
+
+        super();
+
+        this.permits = permits;
+        this.lock = lock;
+    }
+
+    /**
+     * Acquire the bulk permit and then the stripe lock, if any.
+     * @param timeout The time to wait for a bulk permit, in milliseconds
+     * @throws RemotingException if no bulk permit is available before the timeout expires
+     * @throws InterruptedException if interrupted while waiting for a bulk permit
+     */
+    void acquire(
+        final long timeout) throws RemotingException, InterruptedException {
+
+        if ((permits != null) && (permitted == false)) {
+
+            if (permits.tryAcquire(timeout, TimeUnit.MILLISECONDS) == false) {
+                throw new RemotingException(ExceptionType.REMOTING_COMMUNICATION, "Timed out waiting for a bulk connection.");
+            }
+
+            permitted = true;
+        }
+
+        if ((lock != null) && (locked == false)) {
+            lock.lock();
+
+            locked = true;
+        }
+
+    }
+
+    /**
+     * Release the stripe lock and the bulk permit, if held.
+     */
+    void release() {
+
+        if (locked == true) {
+            lock.unlock();
+
+            locked = false;
+        }
+
+        if (permitted == true) {
+            permits.release();
+
+            permitted = false;
+        }
+
+    }
+
+}
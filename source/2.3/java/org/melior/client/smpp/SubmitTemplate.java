@@ -0,0 +1,140 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import org.jsmpp.bean.DataCoding;
+import org.jsmpp.bean.ESMClass;
+import org.jsmpp.bean.GeneralDataCoding;
+import org.jsmpp.bean.OptionalParameter;
+import org.jsmpp.bean.RegisteredDelivery;
+import org.jsmpp.bean.SMSCDeliveryReceipt;
+
+/**
+ * Holds the immutable {@code submit_sm} parameters which are derived from the
+ * client configuration.  The template is built once per configuration, so that
+ * sending a message only involves the parameters which vary per message.
+ * @author Melior
+ * @since 2.3
+ */
+class SubmitTemplate {
+
+    private ESMClass esmClass;
+
+    private DataCoding dataCoding;
+
+    private RegisteredDelivery receiptDelivery;
+
+    private RegisteredDelivery defaultDelivery;
+
+    private OptionalParameter[] singleParameters;
+
+    private OptionalParameter moreMessages;
+
+    private OptionalParameter lastMessage;
+
+    private OptionalParameter[] segmentSeqnums;
+
+    private OptionalParameter[] totalSegments;
+
+    /**
+     * Constructor.
+     * @param configuration The client configuration
+     * @param flipMmts The flip more-messages-to-send indicator
+     */
+    SubmitTemplate(
+        final SmppClientConfig configuration,
+        final boolean flipMmts) {
+
+        super();
+
+        esmClass = new ESMClass();
+        dataCoding = new GeneralDataCoding(configuration.getAlphabet(), configuration.getMessageClass(), false);
+        receiptDelivery = new RegisteredDelivery(SMSCDeliveryReceipt.SUCCESS_FAILURE);
+        defaultDelivery = new RegisteredDelivery(SMSCDeliveryReceipt.DEFAULT);
+
+        moreMessages = new OptionalParameter.More_messages_to_send((byte) (1 ^ ((flipMmts == true) ? 1 : 0)));
+        lastMessage = new OptionalParameter.More_messages_to_send((byte) (0 ^ ((flipMmts == true) ? 1 : 0)));
+        singleParameters = new OptionalParameter[] {lastMessage};
+
+        segmentSeqnums = new OptionalParameter[256];
+        totalSegments = new OptionalParameter[256];
+
+        for (int i = 1; i < 256; i++) {
+            segmentSeqnums[i] = new OptionalParameter.Sar_segment_seqnum((byte) i);
+            totalSegments[i] = new OptionalParameter.Sar_total_segments((byte) i);
+        }
+
+    }
+
+    /**
+     * Get ESM class.
+     * @return The ESM class
+     */
+    ESMClass getEsmClass() {
+        return esmClass;
+    }
+
+    /**
+     * Get data coding.
+     * @return The data coding
+     */
+    DataCoding getDataCoding() {
+        return dataCoding;
+    }
+
+    /**
+     * Get registered delivery directive.
+     * @param deliveryReceipt The delivery receipt indicator
+     * @return The registered delivery directive
+     */
+    RegisteredDelivery getRegisteredDelivery(
+        final boolean deliveryReceipt) {
+        return (deliveryReceipt == true) ? receiptDelivery : defaultDelivery;
+    }
+
+    /**
+     * Get optional parameters for a single-part message.
+     * @return The optional parameters
+     */
+    OptionalParameter[] getSingleParameters() {
+        return singleParameters;
+    }
+
+    /**
+     * Get optional parameters for a long message which is sent in the message payload.
+     * @param payload The message payload
+     * @return The optional parameters
+     */
+    OptionalParameter[] getPayloadParameters(
+        final byte[] payload) {
+
+        return new OptionalParameter[] {
+            lastMessage,
+            new OptionalParameter.Message_payload(payload)};
+    }
+
+    /**
+     * Get optional parameters for a segment of a multi-part message.
+     * @param messageReference The message reference
+     * @param segmentSeq The segment sequence number, starting at 1
+     * @param segmentCount The number of segments
+     * @return The optional parameters
+     */
+    OptionalParameter[] getSegmentParameters(
+        final short messageReference,
+        final int segmentSeq,
+        final int segmentCount) {
+
+        return new OptionalParameter[] {
+            (segmentSeq == segmentCount) ? lastMessage : moreMessages,
+            new OptionalParameter.Sar_msg_ref_num(messageReference),
+            segmentSeqnums[segmentSeq],
+            totalSegments[segmentCount]};
+    }
+
+}
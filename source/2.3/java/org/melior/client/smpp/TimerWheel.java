@@ -0,0 +1,314 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.client.smpp;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.melior.logging.core.Logger;
+import org.melior.logging.core.LoggerFactory;
+
+/**
+ * Implements a hierarchical timer wheel, which runs tasks at a future time.
+ * <p>
+ * The wheel has four levels of 64 slots each.  A slot of the lowest level spans
+ * a single tick, and a slot of every higher level spans a full revolution of the
+ * level below it, so with the default tick of 10 ms the wheel covers more than
+ * 46 hours without overflowing.  Tasks which are further in the future park in
+ * the highest level until they come within range.  When a slot of a higher level
+ * comes due, its tasks cascade down into the lower levels, and when a slot of the
+ * lowest level comes due, its tasks run.
+ * <p>
+ * Scheduling a task is a lock-free enqueue, and the cost of each task is a single
+ * small node, so the wheel can hold millions of pending tasks.  The wheel is only
+ * ever touched by its own thread, which also runs the tasks, so tasks must hand
+ * off any blocking work.
+ * @author Melior
+ * @since 2.3
+ */
+class TimerWheel {
+
+    private static final int LEVELS = 4;
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private long tickNanos;
+
+    private long startTime;
+
+    private long currentTick;
+
+    private Node[][] wheel;
+
+    private Queue<Node> additions;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     * @param tickMillis The duration of a tick in milliseconds
+     */
+    TimerWheel(
+        final long tickMillis) {
+
+        super();
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMillis, 1));
+
+        wheel = new Node[LEVELS][SLOTS];
+        additions = new ConcurrentLinkedQueue<Node>();
+    }
+
+    /**
+     * Start timer wheel.
+     * @param name The thread name
+     */
+    void start(
+        final String name) {
+
+        startTime = System.nanoTime();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop timer wheel.  Pending tasks are discarded.
+     */
+    void stop() {
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+    }
+
+    /**
+     * Flush timer wheel.  All pending tasks are run immediately, regardless of the
+     * time at which they were due, and the wheel is stopped.
+     * @return The number of tasks which were run
+     * @throws InterruptedException if interrupted while waiting for the tasks to run
+     */
+    int flush() throws InterruptedException {
+
+        int count;
+
+        try {
+
+            count = scheduler.submit(() -> {
+
+                int flushed = 0;
+                Node node;
+
+                while ((node = additions.poll()) != null) {
+                    run(node);
+                    flushed++;
+                }
+
+                for (int level = 0; level < LEVELS; level++) {
+
+                    for (int slot = 0; slot < SLOTS; slot++) {
+
+                        for (node = wheel[level][slot]; node != null; node = node.next) {
+                            run(node);
+                            flushed++;
+                        }
+
+                        wheel[level][slot] = null;
+                    }
+
+                }
+
+                return flushed;
+            }).get();
+        }
+        catch (ExecutionException exception) {
+            count = 0;
+        }
+        finally {
+
+            stop();
+        }
+
+        return count;
+    }
+
+    /**
+     * Schedule task.  The time is converted once to the monotonic clock of the wheel,
+     * so that the task still runs after the right delay if the wall clock is stepped.
+     * @param time The time at which to run the task, in milliseconds since the epoch
+     * @param task The task
+     */
+    void schedule(
+        final long time,
+        final Runnable task) {
+
+        long delay;
+        long due;
+
+        delay = Math.min(TimeUnit.MILLISECONDS.toNanos(Math.max(time - System.currentTimeMillis(), 0)), Long.MAX_VALUE >> 1);
+        due = System.nanoTime() - startTime + delay;
+
+        additions.add(new Node((due + tickNanos - 1) / tickNanos, task));
+    }
+
+    /**
+     * Advance the wheel to the current time, and run the tasks that are due.
+     */
+    private void tick() {
+
+        long targetTick;
+        Node node;
+
+        targetTick = (System.nanoTime() - startTime) / tickNanos;
+
+        while ((node = additions.poll()) != null) {
+            place(node);
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            for (int level = LEVELS - 1; level > 0; level--) {
+
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                }
+
+            }
+
+            cascade(0, (int) currentTick & SLOT_MASK);
+        }
+
+    }
+
+    /**
+     * Place node in the slot that comes due at or before its tick, or run its task
+     * if it is already due.
+     * @param node The node
+     */
+    private void place(
+        final Node node) {
+
+        long delta;
+        long tick;
+        int level;
+        int slot;
+
+        delta = node.tick - currentTick;
+
+        if (delta <= 0) {
+            run(node);
+
+            return;
+        }
+
+        tick = node.tick;
+        level = 0;
+
+        while ((level < LEVELS - 1) && (delta >= (1L << (SLOT_BITS * (level + 1))))) {
+            level++;
+        }
+
+        if (delta >= (1L << (SLOT_BITS * LEVELS))) {
+            tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+
+        slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        node.next = wheel[level][slot];
+        wheel[level][slot] = node;
+    }
+
+    /**
+     * Empty slot, and place its nodes again, which either runs their tasks or moves
+     * them into a lower level.
+     * @param level The level
+     * @param slot The slot
+     */
+    private void cascade(
+        final int level,
+        final int slot) {
+
+        Node node;
+        Node next;
+
+        node = wheel[level][slot];
+        wheel[level][slot] = null;
+
+        for (; node != null; node = next) {
+            next = node.next;
+            node.next = null;
+
+            place(node);
+        }
+
+    }
+
+    /**
+     * Run task of node.
+     * @param node The node
+     */
+    private void run(
+        final Node node) {
+
+        String methodName = "run";
+
+        try {
+
+            node.task.run();
+        }
+        catch (Throwable exception) {
+            logger.error(methodName, "Scheduled task failed: ", exception.getMessage());
+        }
+
+    }
+
+    /**
+     * A scheduled task.
+     */
+    private static class Node {
+
+        private long tick;
+
+        private Runnable task;
+
+        private Node next;
+
+        /**
+         * Constructor.
+         * @param tick The tick at which to run the task
+         * @param task The task
+         */
+        Node(
+            final long tick,
+            final Runnable task) {
+
+            super();
+
+            this.tick = tick;
+            this.task = task;
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jsmpp.SMPPConstant;
+import org.jsmpp.extra.ProcessRequestException;
+
+/**
+ * Controls the admission of messages and receipts into an {@code SmppListener}.
+ * The controller tracks the number of messages and receipts which are pending
+ * processing and a moving average of the time it takes to process them.
+ * <p>
+ * While the listener is saturated, either because too many messages and receipts
+ * are pending or because processing is slower than the target latency, then the
+ * acknowledgement of every new arrival is paced with an exponentially growing
+ * delay.  This slows the SMSC implementation down without rejecting anything.  Only
+ * if too many messages and receipts are still pending after the delay is the
+ * arrival rejected with {@code ESME_RX_T_APPN}, and because the rejection itself
+ * is delayed, the SMSC implementation cannot retry in a tight loop.
+ * @author Melior
+ * @since 2.3
+ */
+class AdmissionController {
+
+    private static final long BASE_DELAY = 10;
+
+    private int maximumPending;
+
+    private long targetLatency;
+
+    private long maximumDelay;
+
+    private AtomicInteger pending;
+
+    private AtomicInteger saturation;
+
+    private AtomicLong latency;
+
+    /**
+     * Constructor.
+     * @param maximumPending The maximum number of pending messages and receipts
+     * @param targetLatency The target processing latency in milliseconds, or 0 for none
+     * @param maximumDelay The maximum acknowledgement delay in milliseconds
+     */
+    AdmissionController(
+        final int maximumPending,
+        final long targetLatency,
+        final long maximumDelay) {
+
+        super();
+
+        this.maximumPending = maximumPending;
+        this.targetLatency = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+        this.maximumDelay = maximumDelay;
+
+        pending = new AtomicInteger();
+        saturation = new AtomicInteger();
+        latency = new AtomicLong();
+    }
+
+    /**
+     * Admit message or receipt.  Every successful admission must be followed by
+     * a call to {@code release}.
+     * @throws ProcessRequestException if the message or receipt is rejected
+     */
+    void admit() throws ProcessRequestException {
+
+        long delay;
+
+        if (isSaturated(pending.incrementAndGet()) == false) {
+
+            if (saturation.get() != 0) {
+                saturation.set(0);
+            }
+
+            return;
+        }
+
+        delay = Math.min(maximumDelay, BASE_DELAY << Math.min(saturation.getAndIncrement(), 16));
+
+        try {
+
+            Thread.sleep(delay);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (pending.get() > maximumPending) {
+            pending.decrementAndGet();
+
+            throw new ProcessRequestException("Listener is saturated.", SMPPConstant.STAT_ESME_RX_T_APPN);
+        }
+
+    }
+
+    /**
+     * Release message or receipt.
+     * @param nanos The time taken to process the message or receipt, in nanoseconds
+     */
+    void release(
+        final long nanos) {
+
+        pending.decrementAndGet();
+
+        latency.accumulateAndGet(nanos, (average, sample) -> average + ((sample - average) >> 3));
+    }
+
+    /**
+     * Get number of pending messages and receipts.
+     * @return The number of pending messages and receipts
+     */
+    int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Get moving average of processing latency.
+     * @param timeUnit The time unit of the result
+     * @return The processing latency
+     */
+    long getLatency(
+        final TimeUnit timeUnit) {
+        return timeUnit.convert(latency.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Check whether the listener is saturated.
+     * @param depth The number of pending messages and receipts
+     * @return true if the listener is saturated, false otherwise
+     */
+    private boolean isSaturated(
+        final int depth) {
+        return (depth > maximumPending) || ((targetLatency > 0) && (latency.get() > targetLatency));
+    }
+
+}
@@ -0,0 +1,135 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A shard of an {@code SmppListener}, which holds the counters and the optional
+ * processing lanes of the sessions of a single {@code SmppClient}.  Sessions of
+ * different clients therefore never contend on the same counters.
+ * <p>
+ * When the listener is configured with ordered lanes, then messages and receipts
+ * are processed on a fixed number of single threaded lanes, and the lane is chosen
+ * by the source address, so that all messages and receipts from the same source
+ * are processed in the order in which they arrived.  The lanes are either private
+ * to the shard, or shared by all shards, in which case the order is kept across
+ * all clients.
+ * @author Melior
+ * @since 2.3
+ */
+class ListenerShard {
+
+    private String name;
+
+    private LongAdder totalMessages;
+
+    private LongAdder failedMessages;
+
+    private LongAdder totalReceipts;
+
+    private LongAdder failedReceipts;
+
+    private ExecutorService[] lanes;
+
+    /**
+     * Constructor.
+     * @param name The shard name
+     * @param lanes The processing lanes, or null if messages and receipts are not processed in order
+     */
+    ListenerShard(
+        final String name,
+        final ExecutorService[] lanes) {
+
+        super();
+
+        this.name = name;
+        this.lanes = lanes;
+
+        totalMessages = new LongAdder();
+        failedMessages = new LongAdder();
+        totalReceipts = new LongAdder();
+        failedReceipts = new LongAdder();
+    }
+
+    /**
+     * Get shard name.
+     * @return The shard name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Get counter of total messages.
+     * @return The counter
+     */
+    LongAdder getTotalMessages() {
+        return totalMessages;
+    }
+
+    /**
+     * Get counter of failed messages.
+     * @return The counter
+     */
+    LongAdder getFailedMessages() {
+        return failedMessages;
+    }
+
+    /**
+     * Get counter of total receipts.
+     * @return The counter
+     */
+    LongAdder getTotalReceipts() {
+        return totalReceipts;
+    }
+
+    /**
+     * Get counter of failed receipts.
+     * @return The counter
+     */
+    LongAdder getFailedReceipts() {
+        return failedReceipts;
+    }
+
+    /**
+     * Shut down processing lanes.  Work which was already queued still completes.
+     */
+    void shutdown() {
+
+        if (lanes == null) {
+            return;
+        }
+
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+
+    }
+
+    /**
+     * Get processing lane of source address.
+     * @param sourceAddress The source address
+     * @return The processing lane, or null if messages and receipts are not processed in order
+     */
+    ExecutorService getLane(
+        final String sourceAddress) {
+
+        int hash;
+
+        if (lanes == null) {
+            return null;
+        }
+
+        hash = (sourceAddress == null) ? 0 : sourceAddress.hashCode();
+
+        return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+    }
+
+}
@@ -0,0 +1,318 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import org.jsmpp.util.DeliveryReceiptState;
+import org.melior.client.smpp.SmppTlvs;
+
+/**
+ * Parses the text of SMPP delivery receipts directly, without going through the
+ * text-to-{@code Date} conversion of the SMPP library.  The submit and done dates
+ * are parsed from their 10 or 12 digit {@code YYMMDDhhmm[ss]} fields and converted
+ * from the time zone of the SMSC implementation to the time zone of the JVM.  The
+ * offset between the two time zones is cached until the next time zone transition,
+ * so that converting a date does not allocate any objects other than the result.
+ * @author Melior
+ * @since 2.3
+ */
+class ReceiptParser {
+
+    private static final DeliveryReceiptState[] STATES = DeliveryReceiptState.values();
+
+    private ZoneRules smscRules;
+
+    private ZoneRules localRules;
+
+    private boolean sameZone;
+
+    private volatile long[] offsetCache;
+
+    /**
+     * Constructor.
+     * @param smscZone The time zone of the SMSC implementation
+     */
+    ReceiptParser(
+        final ZoneId smscZone) {
+
+        super();
+
+        smscRules = smscZone.getRules();
+        localRules = ZoneId.systemDefault().getRules();
+        sameZone = smscRules.equals(localRules);
+
+        offsetCache = new long[] {1, 0, 0};
+    }
+
+    /**
+     * Parse receipt text.
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @param text The receipt text
+     * @param tlvs The TLVs of the receipt
+     * @return The receipt, or null if the receipt text cannot be parsed
+     */
+    SmppReceipt parse(
+        final String sourceAddress,
+        final String destinationAddress,
+        final String text,
+        final SmppTlvs tlvs) {
+
+        String messageId;
+        LocalDateTime submitDate;
+        LocalDateTime doneDate;
+        DeliveryReceiptState state;
+        String error;
+
+        messageId = value(text, "id:");
+        submitDate = date(text, "submit date:");
+        doneDate = date(text, "done date:");
+        state = state(text, "stat:");
+        error = value(text, "err:");
+
+        if ((messageId == null) || (submitDate == null) || (doneDate == null) || (state == null)) {
+            return null;
+        }
+
+        return SmppReceipt.of(sourceAddress, destinationAddress, text, messageId, submitDate, doneDate, state, error, tlvs);
+    }
+
+    /**
+     * Find start of field value.
+     * @param text The receipt text
+     * @param field The field name, including the colon
+     * @return The index of the field value, or -1 if the field is absent
+     */
+    private static int find(
+        final String text,
+        final String field) {
+
+        for (int i = 0; i <= text.length() - field.length(); i++) {
+
+            if (((i == 0) || (text.charAt(i - 1) == ' ')) && (text.regionMatches(true, i, field, 0, field.length()) == true)) {
+                return i + field.length();
+            }
+
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get end of field value.
+     * @param text The receipt text
+     * @param start The index of the field value
+     * @return The index just past the field value
+     */
+    private static int end(
+        final String text,
+        final int start) {
+
+        int end;
+
+        for (end = start; (end < text.length()) && (text.charAt(end) != ' '); end++) {
+        }
+
+        return end;
+    }
+
+    /**
+     * Get text field value.
+     * @param text The receipt text
+     * @param field The field name, including the colon
+     * @return The field value, or null if the field is absent
+     */
+    private static String value(
+        final String text,
+        final String field) {
+
+        int start;
+
+        start = find(text, field);
+
+        return (start < 0) ? null : text.substring(start, end(text, start));
+    }
+
+    /**
+     * Get state field value.
+     * @param text The receipt text
+     * @param field The field name, including the colon
+     * @return The delivery receipt state, or null if the field is absent or invalid
+     */
+    private static DeliveryReceiptState state(
+        final String text,
+        final String field) {
+
+        int start;
+        int length;
+
+        start = find(text, field);
+
+        if (start < 0) {
+            return null;
+        }
+
+        length = end(text, start) - start;
+
+        for (DeliveryReceiptState state : STATES) {
+
+            if ((state.name().length() == length) && (text.regionMatches(true, start, state.name(), 0, length) == true)) {
+                return state;
+            }
+
+        }
+
+        return null;
+    }
+
+    /**
+     * Get date field value.
+     * @param text The receipt text
+     * @param field The field name, including the colon
+     * @return The local date time, or null if the field is absent or invalid
+     */
+    private LocalDateTime date(
+        final String text,
+        final String field) {
+
+        int start;
+        int length;
+
+        start = find(text, field);
+
+        if (start < 0) {
+            return null;
+        }
+
+        length = end(text, start) - start;
+
+        if ((length != 10) && (length != 12)) {
+            return null;
+        }
+
+        for (int i = start; i < start + length; i++) {
+
+            if ((text.charAt(i) < '0') || (text.charAt(i) > '9')) {
+                return null;
+            }
+
+        }
+
+        try {
+
+            return convert(2000 + digits(text, start), digits(text, start + 2), digits(text, start + 4),
+                digits(text, start + 6), digits(text, start + 8), (length == 12) ? digits(text, start + 10) : 0);
+        }
+        catch (RuntimeException exception) {
+            return null;
+        }
+
+    }
+
+    /**
+     * Get value of two digits.
+     * @param text The text
+     * @param index The index of the first digit
+     * @return The value
+     */
+    private static int digits(
+        final String text,
+        final int index) {
+        return ((text.charAt(index) - '0') * 10) + (text.charAt(index + 1) - '0');
+    }
+
+    /**
+     * Convert date and time in the SMSC time zone to the JVM time zone.
+     * @param year The year
+     * @param month The month
+     * @param day The day
+     * @param hour The hour
+     * @param minute The minute
+     * @param second The second
+     * @return The local date time
+     */
+    LocalDateTime convert(
+        final int year,
+        final int month,
+        final int day,
+        final int hour,
+        final int minute,
+        final int second) {
+
+        LocalDateTime smscDateTime;
+        long smscSeconds;
+        long[] cache;
+
+        smscDateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+
+        if (sameZone == true) {
+            return smscDateTime;
+        }
+
+        smscSeconds = smscDateTime.toEpochSecond(ZoneOffset.UTC);
+
+        cache = offsetCache;
+
+        if ((smscSeconds < cache[0]) || (smscSeconds >= cache[1])) {
+            cache = cacheOffset(smscDateTime);
+        }
+
+        return LocalDateTime.ofEpochSecond(smscSeconds + cache[2], 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Compute the offset between the SMSC and JVM time zones at a date time, and
+     * cache it for the range of SMSC date times until either time zone transitions.
+     * @param smscDateTime The date time in the SMSC time zone
+     * @return The cache entry, consisting of the range start, the range end and the offset in seconds
+     */
+    private long[] cacheOffset(
+        final LocalDateTime smscDateTime) {
+
+        ZoneOffset smscOffset;
+        Instant instant;
+        long start = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+        long[] cache;
+
+        smscOffset = smscRules.getOffset(smscDateTime);
+        instant = smscDateTime.toInstant(smscOffset);
+
+        for (ZoneRules rules : new ZoneRules[] {smscRules, localRules}) {
+            start = Math.max(start, transitionOf(rules.previousTransition(instant), Long.MIN_VALUE));
+            end = Math.min(end, transitionOf(rules.nextTransition(instant), Long.MAX_VALUE));
+        }
+
+        cache = new long[] {
+            (start == Long.MIN_VALUE) ? start : start + smscOffset.getTotalSeconds(),
+            (end == Long.MAX_VALUE) ? end : end + smscOffset.getTotalSeconds(),
+            localRules.getOffset(instant).getTotalSeconds() - smscOffset.getTotalSeconds()};
+
+        offsetCache = cache;
+
+        return cache;
+    }
+
+    /**
+     * Get epoch second of time zone transition.
+     * @param transition The transition, or null if there is none
+     * @param defaultValue The value to use when there is no transition
+     * @return The epoch second of the transition
+     */
+    private static long transitionOf(
+        final ZoneOffsetTransition transition,
+        final long defaultValue) {
+        return (transition == null) ? defaultValue : transition.toEpochSecond();
+    }
+
+}
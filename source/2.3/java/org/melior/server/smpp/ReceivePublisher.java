@@ -0,0 +1,188 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.util.concurrent.TimeUnit;
+import org.jsmpp.SMPPConstant;
+import org.jsmpp.extra.ProcessRequestException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publishes the messages or receipts which an {@code SmppListener} receives to a
+ * single subscriber, with demand-driven backpressure.  When the subscriber has no
+ * outstanding demand, then the PDU processor thread waits for demand before the
+ * item is published, which delays the {@code deliver_sm_resp} to the SMSC
+ * implementation and so keeps the receive window bounded.
+ * @author Melior
+ * @since 2.3
+ * @param <T> The item type
+ */
+class ReceivePublisher<T> implements Publisher<T> {
+
+    private Object lock;
+
+    private Object emitLock;
+
+    private Subscriber<? super T> subscriber;
+
+    private long demand;
+
+    private long timeout;
+
+    /**
+     * Constructor.
+     * @param timeout The time to wait for demand, in milliseconds
+     */
+    ReceivePublisher(
+        final long timeout) {
+
+        super();
+
+        this.timeout = timeout;
+
+        lock = new Object();
+        emitLock = new Object();
+    }
+
+    /**
+     * Subscribe subscriber.
+     * @param subscriber The subscriber
+     */
+    public void subscribe(
+        final Subscriber<? super T> subscriber) {
+
+        synchronized (lock) {
+
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(new Subscription() {
+                    public void request(final long n) {}
+                    public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("Only a single subscriber is supported."));
+
+                return;
+            }
+
+            this.subscriber = subscriber;
+            demand = 0;
+        }
+
+        subscriber.onSubscribe(new Subscription() {
+
+            public void request(
+                final long n) {
+
+                if (n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("Demand must be positive."));
+
+                    return;
+                }
+
+                synchronized (lock) {
+
+                    if (ReceivePublisher.this.subscriber == subscriber) {
+                        demand = ((demand + n) < 0) ? Long.MAX_VALUE : demand + n;
+                        lock.notifyAll();
+                    }
+
+                }
+
+            }
+
+            public void cancel() {
+
+                synchronized (lock) {
+
+                    if (ReceivePublisher.this.subscriber == subscriber) {
+                        ReceivePublisher.this.subscriber = null;
+                        demand = 0;
+                        lock.notifyAll();
+                    }
+
+                }
+
+            }
+
+        });
+    }
+
+    /**
+     * Check whether the publisher has a subscriber.
+     * @return true if the publisher has a subscriber, false otherwise
+     */
+    boolean hasSubscriber() {
+
+        synchronized (lock) {
+            return subscriber != null;
+        }
+
+    }
+
+    /**
+     * Publish item.  Waits until the subscriber has demand, or until the timeout
+     * expires.
+     * @param item The item
+     * @throws ProcessRequestException if the subscriber has no demand before the timeout expires
+     */
+    void publish(
+        final T item) throws ProcessRequestException {
+
+        Subscriber<? super T> target;
+        long deadline;
+        long remaining;
+
+        synchronized (lock) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+            while ((subscriber != null) && (demand == 0)) {
+                remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+                if (remaining <= 0) {
+                    throw new ProcessRequestException("Subscriber has no demand.", SMPPConstant.STAT_ESME_RX_T_APPN);
+                }
+
+                try {
+
+                    lock.wait(remaining);
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+
+                    throw new ProcessRequestException("Interrupted while waiting for demand.", SMPPConstant.STAT_ESME_RX_T_APPN, exception);
+                }
+
+            }
+
+            if (subscriber == null) {
+                throw new ProcessRequestException("Subscriber has cancelled.", SMPPConstant.STAT_ESME_RX_T_APPN);
+            }
+
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+
+            target = subscriber;
+        }
+
+        try {
+
+            synchronized (emitLock) {
+                target.onNext(item);
+            }
+
+        }
+        catch (Throwable exception) {
+            throw new ProcessRequestException(exception.getMessage(), SMPPConstant.STAT_ESME_RX_T_APPN, exception);
+        }
+
+    }
+
+}
@@ -12,20 +12,34 @@ import java.time.ZoneId;
 import java.util.Collection;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.jsmpp.SMPPConstant;
 import org.jsmpp.bean.DeliverSm;
 import org.jsmpp.bean.DeliveryReceipt;
 import org.jsmpp.bean.MessageType;
 import org.jsmpp.extra.ProcessRequestException;
+import org.jsmpp.util.DeliveryReceiptState;
 import org.jsmpp.util.InvalidDeliveryReceiptException;
 import org.melior.client.exception.RemotingException;
 import org.melior.client.smpp.SmppClient;
+import org.melior.client.smpp.SmppDrainReport;
+import org.melior.client.smpp.SmppExecutors;
 import org.melior.client.smpp.SmppMessage;
+import org.melior.client.smpp.SmppMetrics;
+import org.melior.client.smpp.SmppTlvs;
+import org.melior.client.smpp.SmppTracer;
 import org.melior.context.transaction.TransactionContext;
 import org.melior.logging.core.Logger;
 import org.melior.logging.core.LoggerFactory;
 import org.melior.service.work.SingletonProcessor;
-import org.melior.util.number.Counter;
+import org.reactivestreams.Publisher;
+import org.springframework.util.StringUtils;
 
 /**
  * Implements an easy to use, auto-configuring SMPP listener which listens
@@ -38,7 +52,16 @@ import org.melior.util.number.Counter;
  * If a {@code SingletonProcessor} is configured for receipts, then any
  * new receipts that arrive will be processed by the listener individually.
  * <p>
+ * If a {@code SingletonProcessor} is configured for raw PDUs, then all new
+ * messages and receipts that arrive will be passed to it as they were received,
+ * without being converted, so that it may read any field or TLV.  Receipts are
+ * then still converted for the receipt handles of the clients, if any.
+ * <p>
  * The listener may be configured with multiple threads to speed up processing.
+ * <p>
+ * The listener keeps a separate shard for each client, with its own counters and
+ * optional ordered processing lanes, so that the sessions of different clients do
+ * not contend with each other.  The counters of all shards are merged on demand.
  * @author Melior
  * @since 2.3
  * @see SmppMessage
@@ -54,13 +77,29 @@ public class SmppListener extends SmppListenerConfig {
 
     private SingletonProcessor<SmppReceipt> receiptProcessor;
 
-    private Counter totalMessages;
+    private SingletonProcessor<DeliverSm> rawProcessor;
+
+    private ListenerShard[] shards;
+
+    private ListenerShard defaultShard;
+
+    private volatile SmppMetrics metrics;
+
+    private SmppTracer tracer;
+
+    private ExecutorService executor;
 
-    private Counter failedMessages;
+    private Semaphore pending;
 
-    private Counter totalReceipts;
+    private volatile ReceivePublisher<SmppMessage> messagePublisher;
 
-    private Counter failedReceipts;
+    private volatile ReceivePublisher<SmppReceipt> receiptPublisher;
+
+    private volatile ReceiptParser receiptParser;
+
+    private AdmissionController admission;
+
+    private volatile boolean draining;
 
     /**
      * Constructor.
@@ -73,10 +112,8 @@ public class SmppListener extends SmppListenerConfig {
 
         this.clients = clients;
 
-        totalMessages = Counter.of(0);
-        failedMessages = Counter.of(0);
-        totalReceipts = Counter.of(0);
-        failedReceipts = Counter.of(0);
+        defaultShard = new ListenerShard("default", null);
+        tracer = new SmppTracer(logger, this::getTraceSampleRate);
     }
 
     /**
@@ -105,6 +142,54 @@ public class SmppListener extends SmppListenerConfig {
         return this;
     }
 
+    /**
+     * Set raw processor.  New messages and receipts that arrive from the SMSC
+     * implementation will be passed to the raw processor individually, as they were
+     * received, instead of being converted for the message and receipt processors.
+     * @param rawProcessor The raw processor
+     * @return The SMPP listener
+     */
+    public SmppListener raw(
+        final SingletonProcessor<DeliverSm> rawProcessor) {
+        this.rawProcessor = rawProcessor;
+
+        return this;
+    }
+
+    /**
+     * Get publisher of messages.  Once the publisher has a subscriber, new messages
+     * that arrive from the SMSC implementation are published to the subscriber instead
+     * of being processed by the message processor.  When the subscriber has no demand,
+     * then the acknowledgement of new messages is delayed until it has, or until the
+     * request timeout expires.
+     * @return The publisher of messages
+     */
+    public synchronized Publisher<SmppMessage> messages() {
+
+        if (messagePublisher == null) {
+            messagePublisher = new ReceivePublisher<SmppMessage>(getRequestTimeout());
+        }
+
+        return messagePublisher;
+    }
+
+    /**
+     * Get publisher of receipts.  Once the publisher has a subscriber, new receipts
+     * that arrive from the SMSC implementation are published to the subscriber instead
+     * of being processed by the receipt processor.  When the subscriber has no demand,
+     * then the acknowledgement of new receipts is delayed until it has, or until the
+     * request timeout expires.
+     * @return The publisher of receipts
+     */
+    public synchronized Publisher<SmppReceipt> receipts() {
+
+        if (receiptPublisher == null) {
+            receiptPublisher = new ReceivePublisher<SmppReceipt>(getRequestTimeout());
+        }
+
+        return receiptPublisher;
+    }
+
     /**
      * Start listening for messages and receipts.
      * @throws RemotingException if unable to start listening for messages and receipts
@@ -115,19 +200,248 @@ public class SmppListener extends SmppListenerConfig {
 
     /**
      * Listen for messages and receipts and process new arrivals.
+     * @throws RemotingException if unable to bind the receiver sessions
      */
-    private void listen() {
+    private void listen() throws RemotingException {
 
         String methodName = "listen";
+        ExecutorService[] lanes;
+        int shard;
+
+        metrics = SmppMetrics.create("smpp.listener." + (StringUtils.hasLength(getName()) ? getName() : "default"));
+
+        admission = new AdmissionController(getMaximumPending(), getTargetLatency(), getMaximumAckDelay());
+
+        metrics.gauge("messages.total", this::getTotalMessages);
+        metrics.gauge("messages.failed", this::getFailedMessages);
+        metrics.gauge("receipts.total", this::getTotalReceipts);
+        metrics.gauge("receipts.failed", this::getFailedReceipts);
+
+        if ((isVirtualThreads() == true) && (SmppExecutors.isVirtualThreadSupported() == true)) {
+            pending = new Semaphore(getMaximumPending());
+            executor = SmppExecutors.newExecutor("smpp-listener", true, getThreads());
+        }
+
+        if ((getOrderedLanes() > 0) && (pending == null)) {
+            pending = new Semaphore(getMaximumPending());
+        }
+
+        lanes = ((getOrderedLanes() > 0) && (isMergedOrdering() == true)) ? createLanes("smpp-listener-lane") : null;
+
+        shards = new ListenerShard[clients.size() + 1];
+        shards[clients.size()] = defaultShard;
+        shard = 0;
+
+        for (SmppClient client : clients) {
+            shards[shard] = new ListenerShard(StringUtils.hasLength(client.getName()) ? client.getName() : "client" + shard,
+                ((getOrderedLanes() > 0) && (lanes == null)) ? createLanes("smpp-listener-lane-" + shard) : lanes);
+            shard++;
+        }
 
         logger.debug(methodName, "Started listening for messages and receipts.");
 
+        shard = 0;
+
         for (SmppClient client : clients) {
-            client.setListener(this);
+            client.setListener(this, shard++);
+            client.bindReceivers();
+        }
+
+    }
+
+    /**
+     * Drain listener.  The listener stops accepting new messages and receipts, which
+     * the SMSC implementation is asked to deliver again later.  The listener then
+     * waits for the messages and receipts in progress to be processed, until the
+     * timeout expires, after which the dedicated receiver sessions of the clients are
+     * unbound.  The listener cannot be started again after it has been drained.
+     * @param timeout The timeout in milliseconds
+     * @return The report of what was left over
+     */
+    public SmppDrainReport drain(
+        final long timeout) {
+
+        String methodName = "drain";
+        long deadline;
+        SmppDrainReport report;
+
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        draining = true;
+
+        if (admission == null) {
+            return SmppDrainReport.of(0, 0, 0, 0);
+        }
+
+        try {
+
+            while ((admission.getPending() > 0) && (System.nanoTime() < deadline)) {
+                Thread.sleep(10);
+            }
+
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        for (ListenerShard shard : getShards()) {
+            shard.shutdown();
+        }
+
+        report = SmppDrainReport.of(0, 0, 0, admission.getPending());
+
+        for (SmppClient client : clients) {
+            client.unbindReceivers();
+        }
+
+        metrics.close();
+
+        logger.info(methodName, "Listener drained: ", report);
+
+        return report;
+    }
+
+    /**
+     * Create ordered processing lanes.
+     * @param name The thread name prefix
+     * @return The processing lanes
+     */
+    private ExecutorService[] createLanes(
+        final String name) {
+
+        ExecutorService[] lanes;
+
+        lanes = new ExecutorService[getOrderedLanes()];
+
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = SmppExecutors.newExecutor(name + "-" + i, false, 1);
+        }
+
+        return lanes;
+    }
+
+    /**
+     * Get total number of messages, across all clients.
+     * @return The total number of messages
+     */
+    public long getTotalMessages() {
+
+        long count = 0;
+
+        for (ListenerShard shard : getShards()) {
+            count += shard.getTotalMessages().sum();
+        }
+
+        return count;
+    }
+
+    /**
+     * Get number of failed messages, across all clients.
+     * @return The number of failed messages
+     */
+    public long getFailedMessages() {
+
+        long count = 0;
+
+        for (ListenerShard shard : getShards()) {
+            count += shard.getFailedMessages().sum();
+        }
+
+        return count;
+    }
+
+    /**
+     * Get total number of receipts, across all clients.
+     * @return The total number of receipts
+     */
+    public long getTotalReceipts() {
+
+        long count = 0;
+
+        for (ListenerShard shard : getShards()) {
+            count += shard.getTotalReceipts().sum();
+        }
+
+        return count;
+    }
+
+    /**
+     * Get number of failed receipts, across all clients.
+     * @return The number of failed receipts
+     */
+    public long getFailedReceipts() {
+
+        long count = 0;
+
+        for (ListenerShard shard : getShards()) {
+            count += shard.getFailedReceipts().sum();
+        }
+
+        return count;
+    }
+
+    /**
+     * Take snapshot of the counters, merged across all clients.  The snapshot has
+     * no rates, but it may be passed to a later call to {@code getSnapshot} to
+     * measure the rates over the time in between.
+     * @return The snapshot
+     */
+    public SmppListenerSnapshot getSnapshot() {
+        return getSnapshot(null);
+    }
+
+    /**
+     * Take snapshot of the counters, merged across all clients.  The rates in the
+     * snapshot are averaged over the time since the given snapshot was taken, so
+     * that every caller which polls the listener keeps its own rate window.
+     * @param previous The previous snapshot of the caller, or null if there is none
+     * @return The snapshot
+     */
+    public SmppListenerSnapshot getSnapshot(
+        final SmppListenerSnapshot previous) {
+        return new SmppListenerSnapshot(System.nanoTime(), getTotalMessages(), getFailedMessages(),
+            getTotalReceipts(), getFailedReceipts(), previous);
+    }
+
+    /**
+     * Get shards.  The default shard, which counts the messages and receipts that
+     * were received before the listener was started, is always included.
+     * @return The shards
+     */
+    private ListenerShard[] getShards() {
+        return (shards == null) ? new ListenerShard[] {defaultShard} : shards;
+    }
+
+    /**
+     * Record processing latency.  Messages and receipts which are received before the
+     * listener has been started are processed without metrics.
+     * @param startTime The time at which processing started, as per {@code System.nanoTime}
+     */
+    private void recordProcessing(
+        final long startTime) {
+
+        SmppMetrics metrics;
+
+        metrics = this.metrics;
+
+        if (metrics != null) {
+            metrics.recordProcessing(System.nanoTime() - startTime);
         }
 
     }
 
+    /**
+     * Get metrics.  The metrics are available once the listener has been started.
+     * @return The SMPP metrics
+     */
+    public SmppMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Get message processor.
      * @return The message processor
@@ -151,23 +465,117 @@ public class SmppListener extends SmppListenerConfig {
      */
     public void receive(
         final DeliverSm deliverSm) throws ProcessRequestException {
+        receive(0, deliverSm);
+    }
+
+    /**
+     * Process received message.
+     * @param shard The index of the shard of the client which received the message
+     * @param deliverSm The received message
+     * @throws ProcessRequestException if unable to process the received message
+     */
+    public void receive(
+        final int shard,
+        final DeliverSm deliverSm) throws ProcessRequestException {
+
+        ListenerShard target;
+        long startTime;
+        boolean dispatched = false;
+
+        if (draining == true) {
+            throw new ProcessRequestException("Listener is draining.", SMPPConstant.STAT_ESME_RX_T_APPN);
+        }
+
+        target = ((shards != null) && (shard >= 0) && (shard < shards.length)) ? shards[shard] : defaultShard;
+
+        if (admission == null) {
+            handle(target, deliverSm, System.nanoTime());
+
+            return;
+        }
+
+        admission.admit();
+
+        startTime = System.nanoTime();
+
+        try {
+
+            dispatched = handle(target, deliverSm, startTime);
+        }
+        finally {
+
+            if (dispatched == false) {
+                admission.release(System.nanoTime() - startTime);
+            }
+
+        }
+
+    }
+
+    /**
+     * Handle received message.
+     * @param shard The shard of the client which received the message
+     * @param deliverSm The received message
+     * @param startTime The time at which the message was admitted, as per {@code System.nanoTime}
+     * @return true if processing continues on a lane or a virtual thread after the message has been acknowledged, false if processing has completed
+     * @throws ProcessRequestException if unable to process the received message
+     */
+    private boolean handle(
+        final ListenerShard shard,
+        final DeliverSm deliverSm,
+        final long startTime) throws ProcessRequestException {
 
         String methodName = "receive";
-        DeliveryReceipt deliveryReceipt;
+        boolean sampled;
         SmppReceipt receipt;
         SmppMessage message;
+        ExecutorService lane;
+
+        sampled = tracer.isSampled();
+
+        lane = shard.getLane(deliverSm.getSourceAddr());
+
+        if (rawProcessor != null) {
+
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Raw PDU has been received: shard=", shard.getName(), ", sequence=", deliverSm.getSequenceNumber());
+            }
+
+            if ((MessageType.SMSC_DEL_RECEIPT.containedIn(deliverSm.getEsmClass()) == true) && (isAwaitingReceipts() == true)) {
+
+                try {
+
+                    offerReceipt(toReceipt(deliverSm));
+                }
+                catch (InvalidDeliveryReceiptException exception) {
+                    logger.debug(methodName, "Raw receipt could not be matched to a receipt handle: ", exception.getMessage());
+                }
+
+            }
+
+            if ((lane == null) && (executor == null)) {
+                processRaw(shard, deliverSm);
+            }
+            else {
+                return dispatch((lane == null) ? executor : lane, () -> {
+                    processRaw(shard, deliverSm);
+                    return null;
+                }, startTime);
+            }
+
+            return false;
+        }
 
         if (MessageType.SMSC_DEL_RECEIPT.containedIn(deliverSm.getEsmClass()) == true) {
-            logger.debug(methodName, "Receipt has been received: total=", totalReceipts.get(), ", failed=", failedReceipts.get());
 
-            try {
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Receipt has been received: shard=", shard.getName(),
+                    ", total=", shard.getTotalReceipts().sum(), ", failed=", shard.getFailedReceipts().sum());
+            }
 
-                deliveryReceipt = deliverSm.getShortMessageAsDeliveryReceipt();
+            try {
 
-                receipt = SmppReceipt.of(deliverSm.getSourceAddr(), deliverSm.getDestAddress(),
-                    new String(deliverSm.getShortMessage()), deliveryReceipt.getId(),
-                    convert(deliveryReceipt.getSubmitDate()), convert(deliveryReceipt.getDoneDate()),
-                    deliveryReceipt.getFinalStatus(), deliveryReceipt.getError());
+                receipt = toReceipt(deliverSm);
             }
             catch (InvalidDeliveryReceiptException exception) {
                 logger.warn(methodName, "Receipt will be rejected because it cannot be understood.");
@@ -175,33 +583,301 @@ public class SmppListener extends SmppListenerConfig {
                 throw new ProcessRequestException(exception.getMessage(), SMPPConstant.STAT_ESME_RX_R_APPN, exception);
             }
 
-            logger.debug(methodName, "receipt = ", receipt);
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "receipt = ", receipt);
+            }
+
+            offerReceipt(receipt);
+
+            if ((receiptPublisher != null) && (receiptPublisher.hasSubscriber() == true)) {
+                publishReceipt(shard, receipt);
+            }
+            else if ((lane == null) && (executor == null)) {
+                processReceipt(shard, receipt);
+            }
+            else {
+                return dispatch((lane == null) ? executor : lane, () -> {
+                    processReceipt(shard, receipt);
+                    return null;
+                }, startTime);
+            }
 
-            processReceipt(receipt);
         }
         else {
-            logger.debug(methodName, "Message has been received: total=", totalMessages.get(), ", failed=", failedMessages.get());
 
-            message = SmppMessage.of(deliverSm.getSourceAddr(), deliverSm.getDestAddress(),
-                new String(deliverSm.getShortMessage()), deliverSm.getId());
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "Message has been received: shard=", shard.getName(),
+                    ", total=", shard.getTotalMessages().sum(), ", failed=", shard.getFailedMessages().sum());
+            }
+
+            message = toMessage(deliverSm);
 
-            logger.debug(methodName, "message = ", message);
+            if (tracer.isTraced(sampled) == true) {
+                tracer.trace(methodName, sampled, "message = ", message);
+            }
+
+            if ((messagePublisher != null) && (messagePublisher.hasSubscriber() == true)) {
+                publishMessage(shard, message);
+            }
+            else if ((lane == null) && (executor == null)) {
+                processMessage(shard, message);
+            }
+            else {
+                return dispatch((lane == null) ? executor : lane, () -> {
+                    processMessage(shard, message);
+                    return null;
+                }, startTime);
+            }
+
+        }
+
+        return false;
+    }
+
+    /**
+     * Check whether any client is waiting for receipts.
+     * @return true if any client is waiting for receipts, false otherwise
+     */
+    private boolean isAwaitingReceipts() {
+
+        for (SmppClient client : clients) {
+
+            if (client.isAwaitingReceipts() == true) {
+                return true;
+            }
+
+        }
+
+        return false;
+    }
+
+    /**
+     * Offer receipt to the receipt handles of the clients.
+     * @param receipt The receipt
+     */
+    private void offerReceipt(
+        final SmppReceipt receipt) {
+
+        for (SmppClient client : clients) {
+
+            if (client.completeReceipt(receipt) == true) {
+                break;
+            }
+
+        }
+
+    }
+
+    /**
+     * Dispatch processing to a lane or a virtual thread.  The caller is blocked until
+     * the number of pending messages and receipts drops below the maximum, or until
+     * the request timeout expires.  Unless early acknowledgement is enabled, the
+     * caller is then blocked until processing completes, so that the message or
+     * receipt is only acknowledged once it has been processed, and processing
+     * failures are reported to the SMSC implementation.
+     * @param executor The executor of the lane or the virtual threads
+     * @param work The processing work
+     * @param startTime The time at which the message or receipt was admitted, as per {@code System.nanoTime}
+     * @return true if processing continues after the message or receipt has been acknowledged, false if processing has completed
+     * @throws ProcessRequestException if too many messages and receipts are pending, if the lane has been shut down, or if processing failed
+     */
+    private boolean dispatch(
+        final ExecutorService executor,
+        final Callable<Void> work,
+        final long startTime) throws ProcessRequestException {
+
+        String methodName = "dispatch";
+        boolean early;
+        FutureTask<Void> task;
+
+        early = isEarlyAcknowledgement();
+
+        try {
+
+            if (pending.tryAcquire(getRequestTimeout(), TimeUnit.MILLISECONDS) == false) {
+                throw new ProcessRequestException("Too many messages and receipts are pending processing.", SMPPConstant.STAT_ESME_RX_T_APPN);
+            }
+
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new ProcessRequestException("Interrupted while waiting to process.", SMPPConstant.STAT_ESME_RX_T_APPN, exception);
+        }
+
+        task = new FutureTask<Void>(() -> {
+
+            try {
+
+                return work.call();
+            }
+            catch (Exception exception) {
+
+                if (early == true) {
+                    logger.warn(methodName, "Processing failed after acknowledgement: ", exception.getMessage());
+                }
+
+                throw exception;
+            }
+            finally {
+
+                pending.release();
+
+                if (early == true) {
+                    admission.release(System.nanoTime() - startTime);
+                }
+
+            }
+
+        });
+
+        try {
+
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException exception) {
+            pending.release();
+
+            throw new ProcessRequestException("Listener is shutting down.", SMPPConstant.STAT_ESME_RX_T_APPN, exception);
+        }
+
+        if (early == true) {
+            return true;
+        }
+
+        try {
+
+            task.get();
+        }
+        catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof ProcessRequestException) {
+                throw (ProcessRequestException) exception.getCause();
+            }
+
+            throw new ProcessRequestException(exception.getCause().getMessage(), SMPPConstant.STAT_ESME_RX_T_APPN, exception.getCause());
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new ProcessRequestException("Interrupted while waiting for processing.", SMPPConstant.STAT_ESME_RX_T_APPN, exception);
+        }
+
+        return false;
+    }
+
+    /**
+     * Publish message to the subscriber of the message publisher.
+     * @param shard The shard of the client which received the message
+     * @param message The message
+     * @throws ProcessRequestException if unable to publish the message
+     */
+    private void publishMessage(
+        final ListenerShard shard,
+        final SmppMessage message) throws ProcessRequestException {
+
+        shard.getTotalMessages().increment();
+
+        try {
+
+            messagePublisher.publish(message);
+        }
+        catch (ProcessRequestException exception) {
+
+            shard.getFailedMessages().increment();
+
+            throw exception;
+        }
+
+    }
+
+    /**
+     * Publish receipt to the subscriber of the receipt publisher.
+     * @param shard The shard of the client which received the receipt
+     * @param receipt The receipt
+     * @throws ProcessRequestException if unable to publish the receipt
+     */
+    private void publishReceipt(
+        final ListenerShard shard,
+        final SmppReceipt receipt) throws ProcessRequestException {
+
+        shard.getTotalReceipts().increment();
+
+        try {
+
+            receiptPublisher.publish(receipt);
+        }
+        catch (ProcessRequestException exception) {
+
+            shard.getFailedReceipts().increment();
+
+            throw exception;
+        }
+
+    }
+
+    /**
+     * Process raw PDU.  The PDU is counted as a message or a receipt, according to its
+     * ESM class.
+     * @param shard The shard of the client which received the PDU
+     * @param deliverSm The raw PDU
+     * @throws ProcessRequestException if unable to process the raw PDU
+     */
+    private void processRaw(
+        final ListenerShard shard,
+        final DeliverSm deliverSm) throws ProcessRequestException {
+
+        TransactionContext transactionContext;
+        boolean receipt;
+        long startTime;
+
+        receipt = MessageType.SMSC_DEL_RECEIPT.containedIn(deliverSm.getEsmClass());
+
+        ((receipt == true) ? shard.getTotalReceipts() : shard.getTotalMessages()).increment();
+
+        try {
+
+            transactionContext = TransactionContext.get();
+            transactionContext.startTransaction();
+            transactionContext.setTransactionId(getTransactionId());
+            transactionContext.setCorrelationId(transactionContext.getTransactionId());
+
+            startTime = System.nanoTime();
+
+            try {
+
+                rawProcessor.process(deliverSm);
+            }
+            finally {
+
+                recordProcessing(startTime);
+
+                transactionContext.reset();
+            }
 
-            processMessage(message);
+        }
+        catch (Throwable exception) {
+
+            ((receipt == true) ? shard.getFailedReceipts() : shard.getFailedMessages()).increment();
+
+            throw new ProcessRequestException(exception.getMessage(), SMPPConstant.STAT_ESME_RX_T_APPN, exception);
         }
 
     }
 
     /**
      * Process message.
+     * @param shard The shard of the client which received the message
      * @param message The message
      * @throws ProcessRequestException if unable to process the message
      */
     private void processMessage(
+        final ListenerShard shard,
         final SmppMessage message) throws ProcessRequestException {
 
         String methodName = "processMessage";
         TransactionContext transactionContext;
+        long startTime;
 
         if (messageProcessor == null) {
             logger.warn(methodName, "Message will be discarded because no processor has been registered.");
@@ -209,7 +885,7 @@ public class SmppListener extends SmppListenerConfig {
             return;
         }
 
-        totalMessages.increment();
+        shard.getTotalMessages().increment();
 
         try {
 
@@ -218,19 +894,23 @@ public class SmppListener extends SmppListenerConfig {
             transactionContext.setTransactionId(getTransactionId());
             transactionContext.setCorrelationId(transactionContext.getTransactionId());
 
+            startTime = System.nanoTime();
+
             try {
 
                 messageProcessor.process(message);
             }
             finally {
 
+                recordProcessing(startTime);
+
                 transactionContext.reset();
             }
 
         }
         catch (Throwable exception) {
 
-            failedMessages.increment();
+            shard.getFailedMessages().increment();
 
             throw new ProcessRequestException(exception.getMessage(), SMPPConstant.STAT_ESME_RX_T_APPN, exception);
         }
@@ -239,14 +919,17 @@ public class SmppListener extends SmppListenerConfig {
     
     /**
      * Process receipt.
+     * @param shard The shard of the client which received the receipt
      * @param receipt The receipt
      * @throws ProcessRequestException if unable to process the receipt
      */
     private void processReceipt(
+        final ListenerShard shard,
         final SmppReceipt receipt) throws ProcessRequestException {
 
         String methodName = "processReceipt";
         TransactionContext transactionContext;
+        long startTime;
 
         if (receiptProcessor == null) {
             logger.warn(methodName, "Receipt will be discarded because no processor has been registered.");
@@ -254,7 +937,7 @@ public class SmppListener extends SmppListenerConfig {
             return;
         }
 
-        totalReceipts.increment();
+        shard.getTotalReceipts().increment();
 
         try {
 
@@ -263,25 +946,133 @@ public class SmppListener extends SmppListenerConfig {
             transactionContext.setTransactionId(getTransactionId());
             transactionContext.setCorrelationId(transactionContext.getTransactionId());
 
+            startTime = System.nanoTime();
+
             try {
 
                 receiptProcessor.process(receipt);
             }
             finally {
 
+                recordProcessing(startTime);
+
                 transactionContext.reset();
             }
 
         }
         catch (Throwable exception) {
 
-            failedReceipts.increment();
+            shard.getFailedReceipts().increment();
 
             throw new ProcessRequestException(exception.getMessage(), SMPPConstant.STAT_ESME_RX_T_APPN, exception);
         }
 
     }
 
+    /**
+     * Convert received message to message.  If the short message is empty, then the
+     * message text is taken from the {@code message_payload} TLV.
+     * @param deliverSm The received message
+     * @return The message
+     */
+    private SmppMessage toMessage(
+        final DeliverSm deliverSm) {
+
+        SmppTlvs tlvs;
+        byte[] text;
+        byte[] payload;
+
+        tlvs = SmppTlvs.of(deliverSm.getOptionalParameters());
+        text = deliverSm.getShortMessage();
+
+        if ((text == null) || (text.length == 0)) {
+            payload = tlvs.getMessagePayload();
+            text = (payload == null) ? new byte[0] : payload;
+        }
+
+        return SmppMessage.of(deliverSm.getSourceAddr(), deliverSm.getDestAddress(),
+            new String(text), deliverSm.getId(), tlvs);
+    }
+
+    /**
+     * Convert received message to receipt.  If receipts are built from their TLVs,
+     * then the receipt is built from the {@code receipted_message_id} and
+     * {@code message_state} TLVs when both are present.  Otherwise the receipt
+     * text is parsed directly, and if that fails then the receipt is built from
+     * the TLVs, and only if they are absent is the receipt parsed by the SMPP
+     * library.
+     * @param deliverSm The received message
+     * @return The receipt
+     * @throws InvalidDeliveryReceiptException if the receipt text cannot be understood
+     */
+    private SmppReceipt toReceipt(
+        final DeliverSm deliverSm) throws InvalidDeliveryReceiptException {
+
+        SmppTlvs tlvs;
+        String text;
+        SmppReceipt receipt;
+        DeliveryReceipt deliveryReceipt;
+
+        tlvs = SmppTlvs.of(deliverSm.getOptionalParameters());
+        text = new String(deliverSm.getShortMessage());
+
+        if (isTlvReceipts() == true) {
+            receipt = toReceipt(deliverSm, text, tlvs);
+
+            if (receipt != null) {
+                return receipt;
+            }
+
+        }
+
+        receipt = getReceiptParser().parse(deliverSm.getSourceAddr(), deliverSm.getDestAddress(), text, tlvs);
+
+        if (receipt == null) {
+            receipt = toReceipt(deliverSm, text, tlvs);
+        }
+
+        if (receipt == null) {
+            deliveryReceipt = deliverSm.getShortMessageAsDeliveryReceipt();
+
+            receipt = SmppReceipt.of(deliverSm.getSourceAddr(), deliverSm.getDestAddress(),
+                text, deliveryReceipt.getId(),
+                convert(deliveryReceipt.getSubmitDate()), convert(deliveryReceipt.getDoneDate()),
+                deliveryReceipt.getFinalStatus(), deliveryReceipt.getError(), tlvs);
+        }
+
+        return receipt;
+    }
+
+    /**
+     * Convert received message to receipt using its TLVs.  The error of the receipt
+     * is taken from the {@code network_error_code} TLV, if present.
+     * @param deliverSm The received message
+     * @param text The receipt text
+     * @param tlvs The TLVs of the received message
+     * @return The receipt, or null if the {@code receipted_message_id} or {@code message_state} TLV is absent
+     */
+    private SmppReceipt toReceipt(
+        final DeliverSm deliverSm,
+        final String text,
+        final SmppTlvs tlvs) {
+
+        String messageId;
+        DeliveryReceiptState state;
+        Integer errorCode;
+
+        messageId = tlvs.getReceiptedMessageId();
+        state = tlvs.getMessageState();
+
+        if ((messageId == null) || (state == null)) {
+            return null;
+        }
+
+        errorCode = tlvs.getNetworkErrorCode();
+
+        return SmppReceipt.of(deliverSm.getSourceAddr(), deliverSm.getDestAddress(),
+            text, messageId, null, null, state, (errorCode == null) ? null : String.format("%03d", errorCode), tlvs);
+    }
+
     /**
      * Convert {@code Date} to {@code LocalDateTime}.
      * @param date The date
@@ -289,7 +1080,32 @@ public class SmppListener extends SmppListenerConfig {
      */
     private LocalDateTime convert(
         final Date date) {
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+
+        LocalDateTime dateTime;
+
+        dateTime = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+
+        return getReceiptParser().convert(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+            dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond());
+    }
+
+    /**
+     * Get receipt parser.  The parser is built once for the configured SMSC time zone.
+     * @return The receipt parser
+     */
+    private ReceiptParser getReceiptParser() {
+
+        ReceiptParser parser;
+
+        parser = receiptParser;
+
+        if (parser == null) {
+            parser = new ReceiptParser(getSmscTimeZone());
+
+            receiptParser = parser;
+        }
+
+        return parser;
     }
 
     /**
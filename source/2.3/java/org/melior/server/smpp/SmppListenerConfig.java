@@ -7,6 +7,7 @@
         Service Harness
 */
 package org.melior.server.smpp;
+import java.time.ZoneId;
 import org.melior.client.core.ClientConfig;
 import org.melior.util.number.Clamp;
 
@@ -19,6 +20,26 @@ public class SmppListenerConfig extends ClientConfig {
 
     private int threads = 1;
 
+    private int traceSampleRate = 0;
+
+    private boolean virtualThreads = false;
+
+    private int maximumPending = 1000;
+
+    private ZoneId smscTimeZone = ZoneId.systemDefault();
+
+    private int targetLatency = 0;
+
+    private int maximumAckDelay = 1000;
+
+    private int orderedLanes = 0;
+
+    private boolean mergedOrdering = false;
+
+    private boolean tlvReceipts = false;
+
+    private boolean earlyAcknowledgement = false;
+
     /**
      * Constructor.
      */
@@ -44,4 +65,204 @@ public class SmppListenerConfig extends ClientConfig {
         this.threads = Clamp.clampInt(threads, 1, Integer.MAX_VALUE);
     }
 
+    /**
+     * Get trace sample rate.
+     * @return The trace sample rate
+     */
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * Set trace sample rate.  When set to N, then 1 in N messages and receipts is
+     * written to the logs in full at info level, regardless of whether debug logging
+     * is enabled.  A value of 0 disables sampled tracing.
+     * @param traceSampleRate The trace sample rate
+     */
+    public void setTraceSampleRate(
+        final int traceSampleRate) {
+        this.traceSampleRate = Clamp.clampInt(traceSampleRate, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether messages and receipts are processed on virtual threads.
+     * @return true if messages and receipts are processed on virtual threads, false otherwise
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Set whether messages and receipts are processed on virtual threads.  When
+     * enabled, and the runtime supports virtual threads, then messages and receipts
+     * are processed on virtual threads.  Only if early acknowledgement is enabled as
+     * well are they acknowledged as soon as they have been accepted for processing,
+     * so that slow processors do not hold on to the PDU processor threads.  If the
+     * runtime does not support virtual threads, then messages and receipts are
+     * processed on the PDU processor threads as before.
+     * @param virtualThreads true if messages and receipts should be processed on virtual threads, false otherwise
+     */
+    public void setVirtualThreads(
+        final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Get maximum number of messages and receipts which may be pending processing.
+     * @return The maximum number of pending messages and receipts
+     */
+    public int getMaximumPending() {
+        return maximumPending;
+    }
+
+    /**
+     * Set maximum number of messages and receipts which may be pending processing.
+     * While the maximum is exceeded, acknowledgements are paced, and arrivals which
+     * still exceed the maximum after the acknowledgement delay are rejected with
+     * {@code ESME_RX_T_APPN}.
+     * @param maximumPending The maximum number of pending messages and receipts
+     */
+    public void setMaximumPending(
+        final int maximumPending) {
+        this.maximumPending = Clamp.clampInt(maximumPending, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get SMSC time zone.
+     * @return The SMSC time zone
+     */
+    public ZoneId getSmscTimeZone() {
+        return smscTimeZone;
+    }
+
+    /**
+     * Set SMSC time zone.  The submit and done dates of delivery receipts are
+     * interpreted in this time zone, and converted to the time zone of the JVM.
+     * Defaults to the time zone of the JVM.
+     * @param smscTimeZone The SMSC time zone
+     */
+    public void setSmscTimeZone(
+        final ZoneId smscTimeZone) {
+        this.smscTimeZone = (smscTimeZone == null) ? ZoneId.systemDefault() : smscTimeZone;
+    }
+
+    /**
+     * Get target processing latency.
+     * @return The target processing latency in milliseconds
+     */
+    public int getTargetLatency() {
+        return targetLatency;
+    }
+
+    /**
+     * Set target processing latency.  While the moving average of the processing
+     * latency exceeds the target, acknowledgements are paced.  A value of 0 disables
+     * latency-based pacing.
+     * @param targetLatency The target processing latency in milliseconds
+     */
+    public void setTargetLatency(
+        final int targetLatency) {
+        this.targetLatency = Clamp.clampInt(targetLatency, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get maximum acknowledgement delay.
+     * @return The maximum acknowledgement delay in milliseconds
+     */
+    public int getMaximumAckDelay() {
+        return maximumAckDelay;
+    }
+
+    /**
+     * Set maximum acknowledgement delay.  While the listener is saturated, the
+     * acknowledgement delay doubles with every arrival, up to this maximum.
+     * @param maximumAckDelay The maximum acknowledgement delay in milliseconds
+     */
+    public void setMaximumAckDelay(
+        final int maximumAckDelay) {
+        this.maximumAckDelay = Clamp.clampInt(maximumAckDelay, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get number of ordered lanes.
+     * @return The number of ordered lanes
+     */
+    public int getOrderedLanes() {
+        return orderedLanes;
+    }
+
+    /**
+     * Set number of ordered lanes.  When set, then messages and receipts are
+     * processed on this many single threaded lanes per client, chosen by source
+     * address, so that messages and receipts from the same source are processed in
+     * order.  A value of 0 processes messages and receipts without ordering.
+     * @param orderedLanes The number of ordered lanes
+     */
+    public void setOrderedLanes(
+        final int orderedLanes) {
+        this.orderedLanes = Clamp.clampInt(orderedLanes, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether ordering is kept across clients.
+     * @return true if ordering is kept across clients, false otherwise
+     */
+    public boolean isMergedOrdering() {
+        return mergedOrdering;
+    }
+
+    /**
+     * Set whether ordering is kept across clients.  When set, then the ordered lanes
+     * are shared by all clients, so that messages and receipts from the same source
+     * are processed in order even when they arrive through different clients.
+     * @param mergedOrdering true if ordering should be kept across clients, false otherwise
+     */
+    public void setMergedOrdering(
+        final boolean mergedOrdering) {
+        this.mergedOrdering = mergedOrdering;
+    }
+
+    /**
+     * Check whether receipts are built from their TLVs.
+     * @return true if receipts are built from their TLVs, false otherwise
+     */
+    public boolean isTlvReceipts() {
+        return tlvReceipts;
+    }
+
+    /**
+     * Set whether receipts are built from their TLVs.  When set, then receipts
+     * which carry both the {@code receipted_message_id} and {@code message_state}
+     * TLVs are built from those TLVs without parsing the receipt text, in which
+     * case the submit and done dates are not available.  Receipts without these
+     * TLVs are still parsed from the receipt text.
+     * @param tlvReceipts true if receipts should be built from their TLVs, false otherwise
+     */
+    public void setTlvReceipts(
+        final boolean tlvReceipts) {
+        this.tlvReceipts = tlvReceipts;
+    }
+
+    /**
+     * Check whether messages and receipts are acknowledged before they are processed.
+     * @return true if messages and receipts are acknowledged before they are processed, false otherwise
+     */
+    public boolean isEarlyAcknowledgement() {
+        return earlyAcknowledgement;
+    }
+
+    /**
+     * Set whether messages and receipts are acknowledged before they are processed.
+     * When set, and messages and receipts are processed on virtual threads or on
+     * ordered lanes, then they are acknowledged as soon as they have been queued for
+     * processing.  Processing failures can then no longer be reported to the SMSC
+     * implementation, so messages and receipts whose processing fails are lost.
+     * Otherwise they are only acknowledged once processing has completed.
+     * @param earlyAcknowledgement true if messages and receipts should be acknowledged before they are processed, false otherwise
+     */
+    public void setEarlyAcknowledgement(
+        final boolean earlyAcknowledgement) {
+        this.earlyAcknowledgement = earlyAcknowledgement;
+    }
+
 }
@@ -0,0 +1,172 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+
+/**
+ * A snapshot of the counters of an {@code SmppListener}, merged across all
+ * clients, together with the rates at which the counters grew since the previous
+ * snapshot of the same caller was taken.  Taking a snapshot only reads the
+ * counters, so it does not slow down the listener.
+ * @author Melior
+ * @since 2.3
+ */
+public class SmppListenerSnapshot {
+
+    private long time;
+
+    private long totalMessages;
+
+    private long failedMessages;
+
+    private long totalReceipts;
+
+    private long failedReceipts;
+
+    private double messageRate;
+
+    private double failedMessageRate;
+
+    private double receiptRate;
+
+    private double failedReceiptRate;
+
+    /**
+     * Constructor.
+     * @param time The time of the snapshot, as per {@code System.nanoTime}
+     * @param totalMessages The total number of messages
+     * @param failedMessages The number of failed messages
+     * @param totalReceipts The total number of receipts
+     * @param failedReceipts The number of failed receipts
+     * @param previous The previous snapshot, or null if there is none
+     */
+    SmppListenerSnapshot(
+        final long time,
+        final long totalMessages,
+        final long failedMessages,
+        final long totalReceipts,
+        final long failedReceipts,
+        final SmppListenerSnapshot previous) {
+
+        super();
+
+        this.time = time;
+        this.totalMessages = totalMessages;
+        this.failedMessages = failedMessages;
+        this.totalReceipts = totalReceipts;
+        this.failedReceipts = failedReceipts;
+
+        if (previous != null) {
+            measureRates(previous);
+        }
+
+    }
+
+    /**
+     * Measure the rates at which the counters grew since the previous snapshot.
+     * @param previous The previous snapshot
+     */
+    private void measureRates(
+        final SmppListenerSnapshot previous) {
+
+        double seconds;
+
+        seconds = (time - previous.time) / 1e9;
+
+        if (seconds <= 0) {
+            return;
+        }
+
+        messageRate = (totalMessages - previous.totalMessages) / seconds;
+        failedMessageRate = (failedMessages - previous.failedMessages) / seconds;
+        receiptRate = (totalReceipts - previous.totalReceipts) / seconds;
+        failedReceiptRate = (failedReceipts - previous.failedReceipts) / seconds;
+    }
+
+    /**
+     * Get total number of messages.
+     * @return The total number of messages
+     */
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+
+    /**
+     * Get number of failed messages.
+     * @return The number of failed messages
+     */
+    public long getFailedMessages() {
+        return failedMessages;
+    }
+
+    /**
+     * Get total number of receipts.
+     * @return The total number of receipts
+     */
+    public long getTotalReceipts() {
+        return totalReceipts;
+    }
+
+    /**
+     * Get number of failed receipts.
+     * @return The number of failed receipts
+     */
+    public long getFailedReceipts() {
+        return failedReceipts;
+    }
+
+    /**
+     * Get rate of messages since the previous snapshot.
+     * @return The number of messages per second
+     */
+    public double getMessageRate() {
+        return messageRate;
+    }
+
+    /**
+     * Get rate of failed messages since the previous snapshot.
+     * @return The number of failed messages per second
+     */
+    public double getFailedMessageRate() {
+        return failedMessageRate;
+    }
+
+    /**
+     * Get rate of receipts since the previous snapshot.
+     * @return The number of receipts per second
+     */
+    public double getReceiptRate() {
+        return receiptRate;
+    }
+
+    /**
+     * Get rate of failed receipts since the previous snapshot.
+     * @return The number of failed receipts per second
+     */
+    public double getFailedReceiptRate() {
+        return failedReceiptRate;
+    }
+
+    /**
+     * Returns a string representation of the snapshot.
+     * @return The string representation
+     */
+    public String toString() {
+        return "{" +
+            "\"totalMessages\": " + totalMessages + ", " +
+            "\"failedMessages\": " + failedMessages + ", " +
+            "\"totalReceipts\": " + totalReceipts + ", " +
+            "\"failedReceipts\": " + failedReceipts + ", " +
+            "\"messageRate\": " + messageRate + ", " +
+            "\"failedMessageRate\": " + failedMessageRate + ", " +
+            "\"receiptRate\": " + receiptRate + ", " +
+            "\"failedReceiptRate\": " + failedReceiptRate +
+            "}";
+    }
+
+}
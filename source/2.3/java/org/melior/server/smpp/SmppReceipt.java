@@ -8,6 +8,7 @@
 */
 package org.melior.server.smpp;
 import java.time.LocalDateTime;
+import org.melior.client.smpp.SmppTlvs;
 import org.jsmpp.util.DeliveryReceiptState;
 
 /**
@@ -33,6 +34,8 @@ public class SmppReceipt {
 
     private String error;
 
+    private SmppTlvs tlvs;
+
     /**
      * Constructor.
      * @param sourceAddress The source address
@@ -64,6 +67,8 @@ public class SmppReceipt {
         this.doneDate = doneDate;
         this.state = state;
         this.error = error;
+
+        tlvs = SmppTlvs.empty();
     }
 
     /**
@@ -90,6 +95,38 @@ public class SmppReceipt {
         return new SmppReceipt(sourceAddress, destinationAddress, messageText, messageId, submitDate, doneDate, state, error);
     }
 
+    /**
+     * Get instance of SMPP receipt.
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @param messageText The message text
+     * @param messageId The message identifier
+     * @param submitDate The submit date
+     * @param doneDate The done date
+     * @param state The delivery state
+     * @param error The error
+     * @param tlvs The TLVs of the received receipt
+     * @return The SMPP receipt
+     */
+    public static SmppReceipt of(
+        final String sourceAddress,
+        final String destinationAddress,
+        final String messageText,
+        final String messageId,
+        final LocalDateTime submitDate,
+        final LocalDateTime doneDate,
+        final DeliveryReceiptState state,
+        final String error,
+        final SmppTlvs tlvs) {
+
+        SmppReceipt receipt;
+
+        receipt = new SmppReceipt(sourceAddress, destinationAddress, messageText, messageId, submitDate, doneDate, state, error);
+        receipt.tlvs = (tlvs == null) ? SmppTlvs.empty() : tlvs;
+
+        return receipt;
+    }
+
     /**
      * Get source address.
      * @return The source address
@@ -154,6 +191,15 @@ public class SmppReceipt {
         return error;
     }
 
+    /**
+     * Get TLVs of the received receipt.  The TLVs are only decoded when they are
+     * requested.
+     * @return The TLVs
+     */
+    public SmppTlvs getTlvs() {
+        return tlvs;
+    }
+
     /**
      * Returns a string representation of the SMPP message.
      * @return The string representation
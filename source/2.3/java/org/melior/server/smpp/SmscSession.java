@@ -0,0 +1,199 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A session between an ESME and the {@code SmscSimulator}.  The session buffers
+ * the bytes which are read from the channel until complete PDUs are available,
+ * and queues outbound PDUs until the selector thread writes them to the channel.
+ * Outbound PDUs may be queued from any thread.
+ * @author Melior
+ * @since 2.3
+ */
+class SmscSession {
+
+    private SocketChannel channel;
+
+    private SelectionKey key;
+
+    private ByteBuffer readBuffer;
+
+    private Queue<ByteBuffer> writeQueue;
+
+    private AtomicInteger sequence;
+
+    private volatile boolean transmitter;
+
+    private volatile boolean receiver;
+
+    private volatile boolean closing;
+
+    /**
+     * Constructor.
+     * @param channel The socket channel
+     * @param key The selection key
+     */
+    SmscSession(
+        final SocketChannel channel,
+        final SelectionKey key) {
+
+        super();
+
+        this.channel = channel;
+        this.key = key;
+
+        readBuffer = ByteBuffer.allocate(65536);
+        writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+        sequence = new AtomicInteger();
+    }
+
+    /**
+     * Get socket channel.
+     * @return The socket channel
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Get read buffer.
+     * @return The read buffer
+     */
+    ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    /**
+     * Get next outbound sequence number.
+     * @return The sequence number
+     */
+    int nextSequence() {
+        return sequence.updateAndGet(value -> (value >= 0x7FFFFFFF) ? 1 : value + 1);
+    }
+
+    /**
+     * Bind session.
+     * @param transmitter The transmitter indicator
+     * @param receiver The receiver indicator
+     */
+    void bind(
+        final boolean transmitter,
+        final boolean receiver) {
+        this.transmitter = transmitter;
+        this.receiver = receiver;
+    }
+
+    /**
+     * Check whether session is bound as transmitter.
+     * @return true if the session is bound as transmitter, false otherwise
+     */
+    boolean isTransmitter() {
+        return transmitter;
+    }
+
+    /**
+     * Check whether session is bound as receiver.
+     * @return true if the session is bound as receiver, false otherwise
+     */
+    boolean isReceiver() {
+        return receiver;
+    }
+
+    /**
+     * Close session once all queued PDUs have been written.
+     */
+    void closeAfterWrite() {
+        closing = true;
+    }
+
+    /**
+     * Check whether session is open.
+     * @return true if the session is open, false otherwise
+     */
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Queue outbound PDU.
+     * @param pdu The PDU
+     */
+    void send(
+        final ByteBuffer pdu) {
+
+        if (channel.isOpen() == false) {
+            return;
+        }
+
+        writeQueue.add(pdu);
+
+        key.selector().wakeup();
+    }
+
+    /**
+     * Check whether session has outbound PDUs queued.
+     * @return true if the session has outbound PDUs queued, false otherwise
+     */
+    boolean hasPendingWrites() {
+        return writeQueue.isEmpty() == false;
+    }
+
+    /**
+     * Write queued PDUs to the channel.  Must only be called on the selector thread.
+     * @throws IOException if unable to write to the channel
+     */
+    void flush() throws IOException {
+
+        ByteBuffer pdu;
+
+        while ((pdu = writeQueue.peek()) != null) {
+            channel.write(pdu);
+
+            if (pdu.hasRemaining() == true) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+                return;
+            }
+
+            writeQueue.poll();
+        }
+
+        key.interestOps(SelectionKey.OP_READ);
+
+        if (closing == true) {
+            close();
+        }
+
+    }
+
+    /**
+     * Close session.
+     */
+    void close() {
+
+        key.cancel();
+
+        try {
+
+            channel.close();
+        }
+        catch (IOException exception) {
+        }
+
+        writeQueue.clear();
+    }
+
+}
@@ -0,0 +1,788 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jsmpp.SMPPConstant;
+import org.melior.logging.core.Logger;
+import org.melior.logging.core.LoggerFactory;
+
+/**
+ * Implements a lightweight, in-process SMSC simulator for load testing an
+ * {@code SmppClient} and an {@code SmppListener} without an external SMSC.
+ * <p>
+ * The simulator accepts binds of any type, with any credentials, on a single
+ * NIO selector thread.  It answers {@code submit_sm} requests with a configurable
+ * latency, error rate and throttling limit, and it generates delivery receipts for
+ * messages which request them.  It may also generate mobile originated messages at
+ * a target rate for all sessions which are bound as receivers.
+ * @author Melior
+ * @since 2.3
+ * @see SmscSimulatorBuilder
+ */
+public class SmscSimulator {
+
+    private static final DateTimeFormatter RECEIPT_DATE = DateTimeFormatter.ofPattern("yyMMddHHmm");
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private int port;
+
+    private int latency;
+
+    private double errorRate;
+
+    private int throttle;
+
+    private int receiptDelay;
+
+    private int moRate;
+
+    private String moSourceAddress;
+
+    private String moDestinationAddress;
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private ScheduledExecutorService scheduler;
+
+    private List<SmscSession> receivers;
+
+    private AtomicInteger nextReceiver;
+
+    private AtomicLong messageNumber;
+
+    private AtomicLong moNumber;
+
+    private double tokens;
+
+    private long tokenTime;
+
+    private volatile boolean running;
+
+    /**
+     * Constructor.
+     * @param port The port to listen on, or 0 for an ephemeral port
+     * @param latency The submit response latency in milliseconds
+     * @param errorRate The fraction of submits which fail with a system error
+     * @param throttle The maximum number of submits per second, or 0 for no limit
+     * @param receiptDelay The delivery receipt delay in milliseconds
+     * @param moRate The number of mobile originated messages per second
+     * @param moSourceAddress The source address of mobile originated messages
+     * @param moDestinationAddress The destination address of mobile originated messages
+     */
+    SmscSimulator(
+        final int port,
+        final int latency,
+        final double errorRate,
+        final int throttle,
+        final int receiptDelay,
+        final int moRate,
+        final String moSourceAddress,
+        final String moDestinationAddress) {
+
+        super();
+
+        this.port = port;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.throttle = throttle;
+        this.receiptDelay = receiptDelay;
+        this.moRate = moRate;
+        this.moSourceAddress = moSourceAddress;
+        this.moDestinationAddress = moDestinationAddress;
+
+        receivers = new CopyOnWriteArrayList<SmscSession>();
+        nextReceiver = new AtomicInteger();
+        messageNumber = new AtomicLong();
+        moNumber = new AtomicLong();
+    }
+
+    /**
+     * Start simulator.
+     * @return The SMSC simulator
+     * @throws IOException if unable to start the simulator
+     */
+    public synchronized SmscSimulator start() throws IOException {
+
+        String methodName = "start";
+        Thread selectorThread;
+
+        if (running == true) {
+            return this;
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smsc-simulator-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        tokens = throttle;
+        tokenTime = System.nanoTime();
+        running = true;
+
+        selectorThread = new Thread(this::select, "smsc-simulator-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+
+        if (moRate > 0) {
+            scheduler.scheduleAtFixedRate(new Runnable() {
+
+                private double pending = 0;
+
+                public void run() {
+
+                    pending += moRate / 100d;
+
+                    for (; pending >= 1; pending--) {
+                        sendMessage();
+                    }
+
+                }
+
+            }, 10, 10, TimeUnit.MILLISECONDS);
+        }
+
+        logger.info(methodName, "SMSC simulator is listening on port ", port, ".");
+
+        return this;
+    }
+
+    /**
+     * Stop simulator.  All sessions are closed without unbinding.
+     */
+    public synchronized void stop() {
+
+        String methodName = "stop";
+
+        if (running == false) {
+            return;
+        }
+
+        running = false;
+
+        scheduler.shutdownNow();
+        selector.wakeup();
+
+        logger.info(methodName, "SMSC simulator has stopped.");
+    }
+
+    /**
+     * Get port that the simulator listens on.
+     * @return The port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Get URL that clients should connect to.
+     * @return The URL
+     */
+    public String getUrl() {
+        return "smpp://localhost:" + port;
+    }
+
+    /**
+     * Get number of messages that have been accepted.
+     * @return The number of messages
+     */
+    public long getMessages() {
+        return messageNumber.get();
+    }
+
+    /**
+     * Run selector loop until the simulator is stopped.
+     */
+    private void select() {
+
+        String methodName = "select";
+        Iterator<SelectionKey> iterator;
+        SelectionKey key;
+
+        try {
+
+            while (running == true) {
+                selector.select(100);
+
+                iterator = selector.selectedKeys().iterator();
+
+                while (iterator.hasNext() == true) {
+                    key = iterator.next();
+                    iterator.remove();
+
+                    try {
+
+                        if ((key.isValid() == true) && (key.isAcceptable() == true)) {
+                            accept();
+                        }
+                        else if ((key.isValid() == true) && (key.isReadable() == true)) {
+                            read((SmscSession) key.attachment());
+                        }
+
+                    }
+                    catch (IOException exception) {
+                        close((SmscSession) key.attachment());
+                    }
+
+                }
+
+                for (SelectionKey sessionKey : selector.keys()) {
+
+                    if ((sessionKey.attachment() instanceof SmscSession) && (sessionKey.isValid() == true)) {
+                        flush((SmscSession) sessionKey.attachment());
+                    }
+
+                }
+
+            }
+
+        }
+        catch (Exception exception) {
+            logger.error(methodName, "SMSC simulator failed: ", exception.getMessage());
+        }
+        finally {
+
+            for (SelectionKey sessionKey : selector.keys()) {
+
+                if (sessionKey.attachment() instanceof SmscSession) {
+                    close((SmscSession) sessionKey.attachment());
+                }
+
+            }
+
+            try {
+
+                serverChannel.close();
+                selector.close();
+            }
+            catch (IOException exception) {
+            }
+
+        }
+
+    }
+
+    /**
+     * Accept new connection.
+     * @throws IOException if unable to accept the connection
+     */
+    private void accept() throws IOException {
+
+        SocketChannel channel;
+        SelectionKey key;
+
+        channel = serverChannel.accept();
+
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new SmscSession(channel, key));
+    }
+
+    /**
+     * Read from session and handle all complete PDUs.
+     * @param session The session
+     * @throws IOException if unable to read from the session
+     */
+    private void read(
+        final SmscSession session) throws IOException {
+
+        ByteBuffer buffer;
+        int length;
+        ByteBuffer pdu;
+
+        if (session.isOpen() == false) {
+            return;
+        }
+
+        buffer = session.getReadBuffer();
+
+        if (session.getChannel().read(buffer) < 0) {
+            close(session);
+
+            return;
+        }
+
+        buffer.flip();
+
+        while (buffer.remaining() >= 16) {
+            length = buffer.getInt(buffer.position());
+
+            if ((length < 16) || (length > buffer.capacity())) {
+                close(session);
+
+                return;
+            }
+
+            if (buffer.remaining() < length) {
+                break;
+            }
+
+            pdu = buffer.slice();
+            pdu.limit(length);
+            buffer.position(buffer.position() + length);
+
+            handle(session, pdu);
+        }
+
+        buffer.compact();
+    }
+
+    /**
+     * Flush session.
+     * @param session The session
+     */
+    private void flush(
+        final SmscSession session) {
+
+        try {
+
+            if (session.hasPendingWrites() == true) {
+                session.flush();
+            }
+
+        }
+        catch (IOException exception) {
+            close(session);
+        }
+
+    }
+
+    /**
+     * Close session.
+     * @param session The session
+     */
+    private void close(
+        final SmscSession session) {
+
+        if (session == null) {
+            return;
+        }
+
+        receivers.remove(session);
+        session.close();
+    }
+
+    /**
+     * Handle PDU.
+     * @param session The session
+     * @param pdu The PDU
+     */
+    private void handle(
+        final SmscSession session,
+        final ByteBuffer pdu) {
+
+        int commandId;
+        int sequence;
+
+        pdu.getInt();
+        commandId = pdu.getInt();
+        pdu.getInt();
+        sequence = pdu.getInt();
+
+        try {
+
+            dispatch(session, commandId, sequence, pdu);
+        }
+        catch (RuntimeException exception) {
+            session.send(encode(SMPPConstant.CID_GENERIC_NACK, SMPPConstant.STAT_ESME_RSYSERR, sequence, null));
+        }
+
+    }
+
+    /**
+     * Dispatch PDU to its handler.
+     * @param session The session
+     * @param commandId The command identifier
+     * @param sequence The sequence number
+     * @param pdu The PDU, positioned at the start of the body
+     */
+    private void dispatch(
+        final SmscSession session,
+        final int commandId,
+        final int sequence,
+        final ByteBuffer pdu) {
+
+        switch (commandId) {
+        case SMPPConstant.CID_BIND_TRANSMITTER:
+            bind(session, commandId, sequence, true, false);
+            break;
+        case SMPPConstant.CID_BIND_RECEIVER:
+            bind(session, commandId, sequence, false, true);
+            break;
+        case SMPPConstant.CID_BIND_TRANSCEIVER:
+            bind(session, commandId, sequence, true, true);
+            break;
+        case SMPPConstant.CID_ENQUIRE_LINK:
+            session.send(encode(SMPPConstant.CID_ENQUIRE_LINK_RESP, SMPPConstant.STAT_ESME_ROK, sequence, null));
+            break;
+        case SMPPConstant.CID_UNBIND:
+            receivers.remove(session);
+            session.send(encode(SMPPConstant.CID_UNBIND_RESP, SMPPConstant.STAT_ESME_ROK, sequence, null));
+            session.closeAfterWrite();
+            break;
+        case SMPPConstant.CID_SUBMIT_SM:
+            submit(session, sequence, pdu);
+            break;
+        case SMPPConstant.CID_DELIVER_SM_RESP:
+        case SMPPConstant.CID_ENQUIRE_LINK_RESP:
+        case SMPPConstant.CID_UNBIND_RESP:
+        case SMPPConstant.CID_GENERIC_NACK:
+            break;
+        default:
+            session.send(encode(SMPPConstant.CID_GENERIC_NACK, SMPPConstant.STAT_ESME_RINVCMDID, sequence, null));
+        }
+
+    }
+
+    /**
+     * Handle bind request.
+     * @param session The session
+     * @param commandId The bind command identifier
+     * @param sequence The sequence number
+     * @param transmitter The transmitter indicator
+     * @param receiver The receiver indicator
+     */
+    private void bind(
+        final SmscSession session,
+        final int commandId,
+        final int sequence,
+        final boolean transmitter,
+        final boolean receiver) {
+
+        ByteArrayOutputStream body;
+
+        session.bind(transmitter, receiver);
+
+        if (receiver == true) {
+            receivers.add(session);
+        }
+
+        body = new ByteArrayOutputStream();
+        writeString(body, "SMSC");
+
+        session.send(encode(commandId | SMPPConstant.MASK_CID_RESP, SMPPConstant.STAT_ESME_ROK, sequence, body.toByteArray()));
+    }
+
+    /**
+     * Handle submit request.
+     * @param session The session
+     * @param sequence The sequence number
+     * @param pdu The PDU, positioned at the start of the body
+     */
+    private void submit(
+        final SmscSession session,
+        final int sequence,
+        final ByteBuffer pdu) {
+
+        String sourceAddress;
+        String destinationAddress;
+        byte registeredDelivery;
+        byte[] shortMessage;
+        String messageId;
+        ByteArrayOutputStream body;
+        ByteBuffer response;
+
+        if (session.isTransmitter() == false) {
+            session.send(encode(SMPPConstant.CID_SUBMIT_SM_RESP, SMPPConstant.STAT_ESME_RINVBNDSTS, sequence, null));
+
+            return;
+        }
+
+        if (acquireToken() == false) {
+            session.send(encode(SMPPConstant.CID_SUBMIT_SM_RESP, SMPPConstant.STAT_ESME_RTHROTTLED, sequence, null));
+
+            return;
+        }
+
+        if ((errorRate > 0) && (ThreadLocalRandom.current().nextDouble() < errorRate)) {
+            session.send(encode(SMPPConstant.CID_SUBMIT_SM_RESP, SMPPConstant.STAT_ESME_RSYSERR, sequence, null));
+
+            return;
+        }
+
+        readString(pdu);
+        pdu.get();
+        pdu.get();
+        sourceAddress = readString(pdu);
+        pdu.get();
+        pdu.get();
+        destinationAddress = readString(pdu);
+        pdu.get();
+        pdu.get();
+        pdu.get();
+        readString(pdu);
+        readString(pdu);
+        registeredDelivery = pdu.get();
+        pdu.get();
+        pdu.get();
+        pdu.get();
+        shortMessage = new byte[pdu.get() & 0xFF];
+        pdu.get(shortMessage);
+
+        messageId = Long.toHexString(messageNumber.incrementAndGet());
+
+        body = new ByteArrayOutputStream();
+        writeString(body, messageId);
+        response = encode(SMPPConstant.CID_SUBMIT_SM_RESP, SMPPConstant.STAT_ESME_ROK, sequence, body.toByteArray());
+
+        if (latency > 0) {
+            scheduler.schedule(() -> session.send(response), latency, TimeUnit.MILLISECONDS);
+        }
+        else {
+            session.send(response);
+        }
+
+        if ((registeredDelivery & 0x01) != 0) {
+            scheduler.schedule(() -> sendReceipt(session, messageId, destinationAddress, sourceAddress, shortMessage),
+                latency + receiptDelay, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+    /**
+     * Acquire throttling token.  Must only be called on the selector thread.
+     * @return true if a token was acquired, false if the submit must be throttled
+     */
+    private boolean acquireToken() {
+
+        long now;
+
+        if (throttle <= 0) {
+            return true;
+        }
+
+        now = System.nanoTime();
+        tokens = Math.min(throttle, tokens + ((now - tokenTime) * throttle / 1e9));
+        tokenTime = now;
+
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens--;
+
+        return true;
+    }
+
+    /**
+     * Send delivery receipt.  The receipt is sent on the submitting session if it is
+     * bound as a receiver, otherwise on the next session which is bound as a receiver.
+     * @param session The submitting session
+     * @param messageId The message identifier
+     * @param sourceAddress The source address of the receipt
+     * @param destinationAddress The destination address of the receipt
+     * @param shortMessage The short message of the submit
+     */
+    private void sendReceipt(
+        final SmscSession session,
+        final String messageId,
+        final String sourceAddress,
+        final String destinationAddress,
+        final byte[] shortMessage) {
+
+        SmscSession receiver;
+        String date;
+        String text;
+
+        receiver = ((session.isReceiver() == true) && (session.isOpen() == true)) ? session : nextReceiver();
+
+        if (receiver == null) {
+            return;
+        }
+
+        date = LocalDateTime.now().format(RECEIPT_DATE);
+
+        text = "id:" + messageId + " sub:001 dlvrd:001 submit date:" + date + " done date:" + date
+            + " stat:DELIVRD err:000 text:" + new String(shortMessage, 0, Math.min(shortMessage.length, 20), StandardCharsets.ISO_8859_1);
+
+        deliver(receiver, (byte) 0x04, sourceAddress, destinationAddress, text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Send mobile originated message on the next session which is bound as a receiver.
+     */
+    private void sendMessage() {
+
+        SmscSession receiver;
+
+        receiver = nextReceiver();
+
+        if (receiver == null) {
+            return;
+        }
+
+        deliver(receiver, (byte) 0x00, moSourceAddress, moDestinationAddress,
+            ("MO " + moNumber.incrementAndGet()).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Get next session which is bound as a receiver, in round-robin order.
+     * @return The session, or null if no session is bound as a receiver
+     */
+    private SmscSession nextReceiver() {
+
+        Object[] sessions;
+
+        sessions = receivers.toArray();
+
+        if (sessions.length == 0) {
+            return null;
+        }
+
+        return (SmscSession) sessions[Math.floorMod(nextReceiver.getAndIncrement(), sessions.length)];
+    }
+
+    /**
+     * Send {@code deliver_sm} request.
+     * @param session The session
+     * @param esmClass The ESM class
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @param shortMessage The short message
+     */
+    private void deliver(
+        final SmscSession session,
+        final byte esmClass,
+        final String sourceAddress,
+        final String destinationAddress,
+        final byte[] shortMessage) {
+
+        ByteArrayOutputStream body;
+
+        body = new ByteArrayOutputStream(64 + shortMessage.length);
+        writeString(body, "");
+        body.write(1);
+        body.write(1);
+        writeString(body, sourceAddress);
+        body.write(1);
+        body.write(1);
+        writeString(body, destinationAddress);
+        body.write(esmClass);
+        body.write(0);
+        body.write(0);
+        writeString(body, "");
+        writeString(body, "");
+        body.write(0);
+        body.write(0);
+        body.write(0);
+        body.write(0);
+        body.write(Math.min(shortMessage.length, 254));
+        body.write(shortMessage, 0, Math.min(shortMessage.length, 254));
+
+        session.send(encode(SMPPConstant.CID_DELIVER_SM, SMPPConstant.STAT_ESME_ROK, session.nextSequence(), body.toByteArray()));
+    }
+
+    /**
+     * Encode PDU.
+     * @param commandId The command identifier
+     * @param commandStatus The command status
+     * @param sequence The sequence number
+     * @param body The body, or null if the PDU has no body
+     * @return The encoded PDU
+     */
+    private static ByteBuffer encode(
+        final int commandId,
+        final int commandStatus,
+        final int sequence,
+        final byte[] body) {
+
+        int length;
+        ByteBuffer pdu;
+
+        length = 16 + ((body == null) ? 0 : body.length);
+
+        pdu = ByteBuffer.allocate(length);
+        pdu.putInt(length);
+        pdu.putInt(commandId);
+        pdu.putInt(commandStatus);
+        pdu.putInt(sequence);
+
+        if (body != null) {
+            pdu.put(body);
+        }
+
+        pdu.flip();
+
+        return pdu;
+    }
+
+    /**
+     * Read null-terminated string.
+     * @param pdu The PDU
+     * @return The string
+     */
+    private static String readString(
+        final ByteBuffer pdu) {
+
+        int start;
+        int end;
+
+        start = pdu.position();
+
+        for (end = start; (end < pdu.limit()) && (pdu.get(end) != 0); end++) {
+        }
+
+        pdu.position(Math.min(end + 1, pdu.limit()));
+
+        return new String(pdu.array(), pdu.arrayOffset() + start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Write null-terminated string.
+     * @param body The body
+     * @param string The string
+     */
+    private static void writeString(
+        final ByteArrayOutputStream body,
+        final String string) {
+
+        byte[] bytes;
+
+        bytes = (string == null) ? new byte[0] : string.getBytes(StandardCharsets.ISO_8859_1);
+
+        body.write(bytes, 0, bytes.length);
+        body.write(0);
+    }
+
+}
@@ -0,0 +1,158 @@
+/* __  __      _ _            
+  |  \/  |    | (_)           
+  | \  / | ___| |_  ___  _ __ 
+  | |\/| |/ _ \ | |/ _ \| '__|
+  | |  | |  __/ | | (_) | |   
+  |_|  |_|\___|_|_|\___/|_|   
+        Service Harness
+*/
+package org.melior.server.smpp;
+
+/**
+ * Convenience class for building an {@code SmscSimulator}.
+ * @author Melior
+ * @since 2.3
+ * @see SmscSimulator
+ */
+public class SmscSimulatorBuilder {
+
+    private int port = 0;
+
+    private int latency = 0;
+
+    private double errorRate = 0;
+
+    private int throttle = 0;
+
+    private int receiptDelay = 0;
+
+    private int moRate = 0;
+
+    private String moSourceAddress = "27000000000";
+
+    private String moDestinationAddress = "12345";
+
+    /**
+     * Constructor.
+     */
+    private SmscSimulatorBuilder() {
+
+        super();
+    }
+
+    /**
+     * Create SMSC simulator builder.
+     * @return The SMSC simulator builder
+     */
+    public static SmscSimulatorBuilder create() {
+
+        return new SmscSimulatorBuilder();
+    }
+
+    /**
+     * Build SMSC simulator.
+     * @return The SMSC simulator
+     */
+    public SmscSimulator build() {
+
+        return new SmscSimulator(port, latency, errorRate, throttle, receiptDelay,
+            moRate, moSourceAddress, moDestinationAddress);
+    }
+
+    /**
+     * Set port to listen on.  The default of 0 listens on an ephemeral port.
+     * @param port The port
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder port(
+        final int port) {
+
+        this.port = port;
+
+        return this;
+    }
+
+    /**
+     * Set latency with which submits are answered.
+     * @param latency The latency in milliseconds
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder latency(
+        final int latency) {
+
+        this.latency = Math.max(latency, 0);
+
+        return this;
+    }
+
+    /**
+     * Set fraction of submits which fail with {@code ESME_RSYSERR}.
+     * @param errorRate The error rate, from 0 to 1
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder errorRate(
+        final double errorRate) {
+
+        this.errorRate = Math.min(Math.max(errorRate, 0), 1);
+
+        return this;
+    }
+
+    /**
+     * Set maximum number of submits per second.  Submits in excess of the limit
+     * fail with {@code ESME_RTHROTTLED}.
+     * @param throttle The maximum number of submits per second, or 0 for no limit
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder throttle(
+        final int throttle) {
+
+        this.throttle = Math.max(throttle, 0);
+
+        return this;
+    }
+
+    /**
+     * Set delay after the submit response after which a delivery receipt is sent,
+     * for submits which request registered delivery.
+     * @param receiptDelay The delay in milliseconds
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder receiptDelay(
+        final int receiptDelay) {
+
+        this.receiptDelay = Math.max(receiptDelay, 0);
+
+        return this;
+    }
+
+    /**
+     * Set rate at which mobile originated messages are generated.
+     * @param moRate The number of messages per second
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder moRate(
+        final int moRate) {
+
+        this.moRate = Math.max(moRate, 0);
+
+        return this;
+    }
+
+    /**
+     * Set addresses of mobile originated messages.
+     * @param sourceAddress The source address
+     * @param destinationAddress The destination address
+     * @return The SMSC simulator builder
+     */
+    public SmscSimulatorBuilder moAddresses(
+        final String sourceAddress,
+        final String destinationAddress) {
+
+        this.moSourceAddress = sourceAddress;
+        this.moDestinationAddress = destinationAddress;
+
+        return this;
+    }
+
+}